@@ -3,15 +3,33 @@
 USE purchase_db;
 
 -- Create purchases table
+-- Country and currency are dictionary-encoded: purchases store small ids into countries/currencies
+DROP TABLE IF EXISTS purchase_conversions;
 DROP TABLE IF EXISTS purchases;
+DROP TABLE IF EXISTS countries;
+DROP TABLE IF EXISTS currencies;
+CREATE TABLE countries (
+    id SMALLINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(100) NOT NULL UNIQUE
+);
+CREATE TABLE currencies (
+    id SMALLINT AUTO_INCREMENT PRIMARY KEY,
+    code VARCHAR(100) NOT NULL UNIQUE -- Stores country_currency_desc (e.g., "Canada-Dollar", "United States-Dollar")
+);
 CREATE TABLE purchases (
-    id CHAR(36) PRIMARY KEY,
+    id BINARY(16) PRIMARY KEY, -- Time-ordered UUIDv7 bytes, so inserts append to the clustered index
     date DATE NOT NULL,
     description VARCHAR(50) NOT NULL,
     purchase_amount DECIMAL(10, 2) NOT NULL,
-    country VARCHAR(100) NOT NULL,
-    currency_code VARCHAR(100) NOT NULL, -- Stores country_currency_desc (e.g., "Canada-Dollar", "United States-Dollar")
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    country_id SMALLINT NOT NULL,
+    currency_id SMALLINT NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_purchases_country FOREIGN KEY (country_id) REFERENCES countries (id),
+    CONSTRAINT fk_purchases_currency FOREIGN KEY (currency_id) REFERENCES currencies (id),
+    KEY idx_purchases_date_id (date DESC, id), -- Listing order; keyset pages seek on (date, id)
+    KEY idx_purchases_country_date (country_id, date), -- Filters: country with or without a date range
+    KEY idx_purchases_currency_date (currency_id, date), -- Filters: currency with or without a date range
+    KEY idx_purchases_amount (purchase_amount) -- Filters: amount range
 );
 
 -- Create api_keys table
@@ -24,14 +42,49 @@ CREATE TABLE api_keys (
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Create exchange_rates table (Treasury rates of exchange, synced incrementally by record_date)
+DROP TABLE IF EXISTS exchange_rates;
+CREATE TABLE exchange_rates (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    currency_code VARCHAR(100) NOT NULL, -- Stores country_currency_desc (e.g., "Canada-Dollar")
+    record_date DATE NOT NULL,
+    exchange_rate DECIMAL(19, 6) NOT NULL,
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    UNIQUE KEY uk_exchange_rates_currency_date (currency_code, record_date),
+    KEY idx_exchange_rates_record_date (record_date)
+);
+
+-- Create purchase_conversions table (materialized USD -> target currency conversions)
+-- Filled lazily on reads; rows are deleted with their purchase or when a newer rate lands in their window
+CREATE TABLE purchase_conversions (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    purchase_id BINARY(16) NOT NULL,
+    currency_id SMALLINT NOT NULL,
+    purchase_date DATE NOT NULL,
+    converted_amount DECIMAL(19, 2) NOT NULL,
+    exchange_rate DECIMAL(24, 12) NOT NULL,
+    rate_date DATE NOT NULL,
+    computed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_purchase_conversions_purchase FOREIGN KEY (purchase_id) REFERENCES purchases (id) ON DELETE CASCADE,
+    CONSTRAINT fk_purchase_conversions_currency FOREIGN KEY (currency_id) REFERENCES currencies (id),
+    UNIQUE KEY uk_purchase_conversions_purchase_currency (purchase_id, currency_id), -- Lookups for a page of purchases
+    KEY idx_purchase_conversions_currency_date (currency_id, purchase_date) -- Invalidation when new rates land
+);
+
 -- Insert sample data
--- Note: currency_code now uses country_currency_desc format from Treasury API
-INSERT INTO purchases (id, date, description, purchase_amount, country, currency_code) VALUES
-(UUID(), '2025-01-15', 'Laptop Computer', 1299.99, 'United States', 'United States-Dollar'),
-(UUID(), '2025-01-16', 'Wireless Mouse', 29.99, 'United States', 'United States-Dollar'),
-(UUID(), '2025-01-17', 'Keyboard', 79.99, 'United States', 'United States-Dollar'),
-(UUID(), '2025-01-18', 'Monitor 27 inch', 349.99, 'United States', 'United States-Dollar'),
-(UUID(), '2025-01-19', 'USB Cable', 12.99, 'United States', 'United States-Dollar');
+-- Note: currency codes use country_currency_desc format from Treasury API
+INSERT INTO countries (name) VALUES ('United States');
+INSERT INTO currencies (code) VALUES ('United States-Dollar');
+SET @us_country = (SELECT id FROM countries WHERE name = 'United States');
+SET @us_dollar = (SELECT id FROM currencies WHERE code = 'United States-Dollar');
+-- Literal UUIDv7 ids (timestamp of each purchase date at 12:00 UTC), like the ones the application writes;
+-- MySQL's UUID() would give version-1 ids, which do not sort by creation time in this byte order
+INSERT INTO purchases (id, date, description, purchase_amount, country_id, currency_id) VALUES
+(UUID_TO_BIN('019469d5-b200-752e-89a7-834df2a74de4'), '2025-01-15', 'Laptop Computer', 1299.99, @us_country, @us_dollar),
+(UUID_TO_BIN('01946efc-0e00-7651-8317-1ff4a6a3a450'), '2025-01-16', 'Wireless Mouse', 29.99, @us_country, @us_dollar),
+(UUID_TO_BIN('01947422-6a00-7128-a24b-e40ad23f0824'), '2025-01-17', 'Keyboard', 79.99, @us_country, @us_dollar),
+(UUID_TO_BIN('01947948-c600-7181-a54c-66175d9dc9f8'), '2025-01-18', 'Monitor 27 inch', 349.99, @us_country, @us_dollar),
+(UUID_TO_BIN('01947e6f-2200-70ed-a079-d3bde8e25d94'), '2025-01-19', 'USB Cable', 12.99, @us_country, @us_dollar);
 
 INSERT INTO api_keys (name, api_key, expiration_date) 
 VALUES ('Default API Key', 'wk_3c1f0f65a19444879772ff82833f5347', DATE_ADD(CURDATE(), INTERVAL 1 YEAR));
\ No newline at end of file
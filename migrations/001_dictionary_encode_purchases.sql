@@ -0,0 +1,34 @@
+-- Convert purchases.country / purchases.currency_code strings into ids of the
+-- countries / currencies dictionary tables (MySQL). Run once against an existing purchase_db
+-- before starting the application version that reads country_id / currency_id.
+USE purchase_db;
+
+CREATE TABLE IF NOT EXISTS countries (
+    id SMALLINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(100) NOT NULL UNIQUE
+);
+CREATE TABLE IF NOT EXISTS currencies (
+    id SMALLINT AUTO_INCREMENT PRIMARY KEY,
+    code VARCHAR(100) NOT NULL UNIQUE
+);
+
+INSERT IGNORE INTO countries (name) SELECT DISTINCT country FROM purchases;
+INSERT IGNORE INTO currencies (code) SELECT DISTINCT currency_code FROM purchases;
+
+ALTER TABLE purchases
+    ADD COLUMN country_id SMALLINT NULL,
+    ADD COLUMN currency_id SMALLINT NULL;
+
+UPDATE purchases p
+    JOIN countries c ON c.name = p.country
+    JOIN currencies cu ON cu.code = p.currency_code
+SET p.country_id = c.id,
+    p.currency_id = cu.id;
+
+ALTER TABLE purchases
+    MODIFY country_id SMALLINT NOT NULL,
+    MODIFY currency_id SMALLINT NOT NULL,
+    ADD CONSTRAINT fk_purchases_country FOREIGN KEY (country_id) REFERENCES countries (id),
+    ADD CONSTRAINT fk_purchases_currency FOREIGN KEY (currency_id) REFERENCES currencies (id),
+    DROP COLUMN country,
+    DROP COLUMN currency_code;
@@ -0,0 +1,47 @@
+-- Store purchases.id as BINARY(16) instead of CHAR(36) (MySQL 8). Run once against an existing
+-- purchase_db before starting the application version that writes time-ordered (UUIDv7) ids.
+-- Existing ids keep their value (UUID_TO_BIN without the swap flag, the byte order the application
+-- uses), so ids already handed out stay valid; only new purchases get time-ordered ids.
+-- Order: apply 001_dictionary_encode_purchases.sql first (purchase_conversions references the
+-- currencies table it creates), then this script, each exactly once.
+USE purchase_db;
+
+-- Stored conversions are derived data: drop them instead of converting, they are refilled on read
+DROP TABLE IF EXISTS purchase_conversions;
+
+ALTER TABLE purchases ADD COLUMN id_bin BINARY(16) NULL AFTER id;
+UPDATE purchases SET id_bin = UUID_TO_BIN(id);
+
+-- idx_purchases_date_id only exists if the database was created from the current init.sql or
+-- Hibernate added it; drop it on its own when present, so the ALTER below cannot stop halfway
+SET @drop_date_index = (SELECT IF(COUNT(*) > 0, 'ALTER TABLE purchases DROP INDEX idx_purchases_date_id', 'DO 0')
+    FROM information_schema.statistics
+    WHERE table_schema = DATABASE() AND table_name = 'purchases' AND index_name = 'idx_purchases_date_id');
+PREPARE drop_date_index FROM @drop_date_index;
+EXECUTE drop_date_index;
+DEALLOCATE PREPARE drop_date_index;
+
+ALTER TABLE purchases
+    DROP PRIMARY KEY,
+    DROP COLUMN id;
+
+-- Rebuilds the table in id order
+ALTER TABLE purchases
+    CHANGE COLUMN id_bin id BINARY(16) NOT NULL FIRST,
+    ADD PRIMARY KEY (id),
+    ADD KEY idx_purchases_date_id (date DESC, id);
+
+CREATE TABLE purchase_conversions (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    purchase_id BINARY(16) NOT NULL,
+    currency_id SMALLINT NOT NULL,
+    purchase_date DATE NOT NULL,
+    converted_amount DECIMAL(19, 2) NOT NULL,
+    exchange_rate DECIMAL(24, 12) NOT NULL,
+    rate_date DATE NOT NULL,
+    computed_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    CONSTRAINT fk_purchase_conversions_purchase FOREIGN KEY (purchase_id) REFERENCES purchases (id) ON DELETE CASCADE,
+    CONSTRAINT fk_purchase_conversions_currency FOREIGN KEY (currency_id) REFERENCES currencies (id),
+    UNIQUE KEY uk_purchase_conversions_purchase_currency (purchase_id, currency_id),
+    KEY idx_purchase_conversions_currency_date (currency_id, purchase_date)
+);
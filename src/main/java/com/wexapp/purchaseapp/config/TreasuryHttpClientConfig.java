@@ -0,0 +1,93 @@
+package com.wexapp.purchaseapp.config;
+
+import io.netty.channel.ChannelOption;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * HTTP client used for all U.S. Treasury API traffic
+ * Pooled keep-alive connections, gzip responses and HTTP/2 (negotiated over TLS, falling back to
+ * HTTP/1.1) keep repeated catalog and rate page fetches cheap; every setting is a currency.api.* property
+ */
+@Configuration
+public class TreasuryHttpClientConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(TreasuryHttpClientConfig.class);
+
+    @Value("${currency.api.pool.max-connections:16}")
+    private int maxConnections;
+
+    @Value("${currency.api.pool.pending-acquire-timeout-ms:5000}")
+    private long pendingAcquireTimeoutMs;
+
+    @Value("${currency.api.pool.max-idle-time-seconds:30}")
+    private long maxIdleTimeSeconds;
+
+    @Value("${currency.api.pool.max-life-time-seconds:300}")
+    private long maxLifeTimeSeconds;
+
+    @Value("${currency.api.pool.evict-interval-seconds:30}")
+    private long evictIntervalSeconds;
+
+    @Value("${currency.api.keep-alive:true}")
+    private boolean keepAlive;
+
+    @Value("${currency.api.compression:true}")
+    private boolean compression;
+
+    @Value("${currency.api.http2:true}")
+    private boolean http2;
+
+    @Value("${currency.api.connect-timeout-ms:3000}")
+    private int connectTimeoutMs;
+
+    @Value("${currency.api.response-timeout-ms:10000}")
+    private long responseTimeoutMs;
+
+    @Value("${currency.api.max-in-memory-size-kb:16384}")
+    private int maxInMemorySizeKb;
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider treasuryConnectionProvider() {
+        return ConnectionProvider.builder("treasury")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(pendingAcquireTimeoutMs))
+                .maxIdleTime(Duration.ofSeconds(maxIdleTimeSeconds))
+                .maxLifeTime(Duration.ofSeconds(maxLifeTimeSeconds))
+                .evictInBackground(Duration.ofSeconds(evictIntervalSeconds))
+                .build();
+    }
+
+    @Bean
+    public WebClient treasuryWebClient(ConnectionProvider treasuryConnectionProvider) {
+        HttpClient httpClient = HttpClient.create(treasuryConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .option(ChannelOption.SO_KEEPALIVE, keepAlive)
+                .keepAlive(keepAlive)
+                // Sends Accept-Encoding: gzip and inflates compressed responses
+                .compress(compression)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+        if (http2) {
+            // h2 is negotiated via ALPN on https; plain http and older servers stay on HTTP/1.1
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+        logger.info("Treasury HTTP client: pool={} keepAlive={} gzip={} http2={}", maxConnections, keepAlive, compression, http2);
+
+        // Don't set baseUrl - we'll construct full URLs to avoid URI parsing issues
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                // Treasury pages are stream-decoded; this only bounds bodies decoded whole
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxInMemorySizeKb * 1024))
+                .build();
+    }
+}
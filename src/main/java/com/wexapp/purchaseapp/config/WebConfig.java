@@ -15,7 +15,7 @@ public class WebConfig implements WebMvcConfigurer {
     @Override
     public void addInterceptors(InterceptorRegistry registry) {
         registry.addInterceptor(apiKeyInterceptor)
-                .addPathPatterns("/api/purchases/**")
+                .addPathPatterns("/api/purchases/**", "/api/rates/**")
                 .excludePathPatterns("/api/apikeys/**"); // Exclude API key management endpoints
     }
 }
@@ -1,12 +1,21 @@
 package com.wexapp.purchaseapp.controller;
 
 import com.wexapp.purchaseapp.dto.CountryCurrencyDTO;
+import com.wexapp.purchaseapp.dto.PurchaseBatchResultDTO;
 import com.wexapp.purchaseapp.dto.PurchaseDTO;
+import com.wexapp.purchaseapp.dto.PurchaseFilterDTO;
+import com.wexapp.purchaseapp.dto.PurchaseImportResultDTO;
+import com.wexapp.purchaseapp.dto.PurchaseIngestStatusDTO;
+import com.wexapp.purchaseapp.dto.PurchaseSummaryDTO;
 import com.wexapp.purchaseapp.dto.PurchaseWithConversionDTO;
 import com.wexapp.purchaseapp.exception.ExchangeRateNotFoundException;
+import com.wexapp.purchaseapp.exception.IngestionUnavailableException;
+import com.wexapp.purchaseapp.service.PurchaseImportService;
+import com.wexapp.purchaseapp.service.PurchaseIngestionService;
 import com.wexapp.purchaseapp.service.PurchaseService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -14,64 +23,166 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import org.springdoc.core.annotations.ParameterObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/api/purchases")
-@CrossOrigin(origins = "*")
+@CrossOrigin(origins = "*", exposedHeaders = PurchaseController.NEXT_CURSOR_HEADER)
 @Tag(name = "Purchase Controller", description = "APIs for managing purchases and currency conversion")
 @SecurityRequirement(name = "ApiKeyAuth")
 public class PurchaseController {
     
     private static final Logger logger = LoggerFactory.getLogger(PurchaseController.class);
 
+    // Cursor of the next page when a listing is paginated; absent on the last page
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    static final String NDJSON = "application/x-ndjson";
+
     @Autowired
     private PurchaseService purchaseService;
 
+    @Autowired
+    private PurchaseImportService purchaseImportService;
+
+    @Autowired
+    private PurchaseIngestionService purchaseIngestionService;
+
     @PostMapping
     @Operation(
             summary = "Create a new purchase",
             description = "Creates a new purchase record. The purchase amount should be in USD. " +
-                    "The currency code will be automatically set based on the country."
+                    "The currency code will be automatically set based on the country. " +
+                    "With async=true the purchase is validated, given its id and queued: the response is 202 " +
+                    "and GET /api/purchases/ingest/{id} reports when it is committed."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Purchase created successfully",
                     content = @Content(schema = @Schema(implementation = PurchaseDTO.class))),
+            @ApiResponse(responseCode = "202", description = "Purchase accepted for asynchronous ingestion",
+                    content = @Content(schema = @Schema(implementation = PurchaseDTO.class))),
             @ApiResponse(responseCode = "400", description = "Validation error",
                     content = @Content(schema = @Schema(implementation = Map.class))),
-            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing API key")
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing API key"),
+            @ApiResponse(responseCode = "503", description = "Ingestion queue full or not accepting purchases",
+                    content = @Content(schema = @Schema(implementation = Map.class)))
     })
     public ResponseEntity<PurchaseDTO> createPurchase(
             @Parameter(description = "Purchase details", required = true)
-            @Valid @RequestBody PurchaseDTO purchaseDTO) {
+            @Valid @RequestBody PurchaseDTO purchaseDTO,
+            @Parameter(description = "Queue the purchase and acknowledge it before it is committed")
+            @RequestParam(defaultValue = "false") boolean async) {
+        if (async) {
+            PurchaseDTO accepted = purchaseIngestionService.submit(purchaseDTO);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/purchases/ingest/" + accepted.getId()))
+                    .body(accepted);
+        }
         PurchaseDTO created = purchaseService.createPurchase(purchaseDTO);
         return new ResponseEntity<>(created, HttpStatus.CREATED);
     }
 
+    @GetMapping("/ingest/{id}")
+    @Operation(
+            summary = "Get the state of an asynchronously created purchase",
+            description = "Reports QUEUED, COMMITTED or FAILED (with the error) for a purchase accepted by " +
+                    "POST /api/purchases?async=true"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Ingestion state found",
+                    content = @Content(schema = @Schema(implementation = PurchaseIngestStatusDTO.class))),
+            @ApiResponse(responseCode = "404", description = "Unknown purchase id"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing API key")
+    })
+    public ResponseEntity<PurchaseIngestStatusDTO> getIngestStatus(
+            @Parameter(description = "Purchase UUID from the 202 response", required = true,
+                    example = "550e8400-e29b-41d4-a716-446655440000")
+            @PathVariable String id) {
+        return purchaseIngestionService.getStatus(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @PostMapping("/batch")
+    @Operation(
+            summary = "Create many purchases",
+            description = "Creates up to purchases.batch.max-size purchases in one transaction. " +
+                    "Each purchase is validated on its own; invalid ones are reported as REJECTED and skipped, " +
+                    "the others are inserted in JDBC batches. Results are returned in request order."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Batch processed; see the status of each result",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = PurchaseBatchResultDTO.class)))),
+            @ApiResponse(responseCode = "400", description = "Batch larger than the maximum size",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing API key")
+    })
+    public ResponseEntity<List<PurchaseBatchResultDTO>> createPurchases(
+            @Parameter(description = "Purchases to create", required = true)
+            @RequestBody List<PurchaseDTO> purchaseDTOs) {
+        return ResponseEntity.ok(purchaseService.createPurchases(purchaseDTOs));
+    }
+
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE, MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    @Operation(
+            summary = "Import purchases from CSV",
+            description = "Streams a CSV file with a header row (date, description, purchaseAmount, country) into purchases. " +
+                    "The upload is parsed as it arrives and written in chunks, each in its own transaction, so memory use " +
+                    "does not depend on the file size. Invalid rows are counted and skipped."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "File imported; see the counts and rejected rows",
+                    content = @Content(schema = @Schema(implementation = PurchaseImportResultDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Missing or incomplete header row",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing API key"),
+            @ApiResponse(responseCode = "500", description = "Import stopped early; committed chunks are kept",
+                    content = @Content(schema = @Schema(implementation = PurchaseImportResultDTO.class)))
+    })
+    public ResponseEntity<PurchaseImportResultDTO> importPurchases(
+            @Parameter(description = "CSV file (UTF-8)", required = true) InputStream csv) throws IOException {
+        PurchaseImportResultDTO result = purchaseImportService.importCsv(csv);
+        return ResponseEntity.status(result.isCompleted() ? HttpStatus.OK : HttpStatus.INTERNAL_SERVER_ERROR).body(result);
+    }
+
     @GetMapping
     @Operation(
             summary = "Get all purchases",
-            description = "Retrieves a list of all purchase records"
+            description = "Retrieves purchase records, newest first, optionally filtered by date range, country, " +
+                    "currency and amount range. The list is always paginated (default page size unless 'limit' is given); " +
+                    "the X-Next-Cursor response header carries the 'after' value of the next page."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved purchases",
                     content = @Content(schema = @Schema(implementation = PurchaseDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid limit, cursor or filter range",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing API key")
     })
-    public ResponseEntity<List<PurchaseDTO>> getAllPurchases() {
-        List<PurchaseDTO> purchases = purchaseService.getAllPurchases();
-        return ResponseEntity.ok(purchases);
+    public ResponseEntity<List<PurchaseDTO>> getAllPurchases(
+            @ParameterObject PurchaseFilterDTO filter,
+            @Parameter(description = "Page size (default 100, capped at the configured maximum)", example = "100")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Cursor from the X-Next-Cursor header of the previous page")
+            @RequestParam(required = false) String after) {
+        return pageResponse(purchaseService.getPurchasesPage(filter, limit, after));
     }
 
     @GetMapping("/{id}")
@@ -96,25 +207,98 @@ public class PurchaseController {
     @GetMapping("/converted")
     @Operation(
             summary = "Get purchases with currency conversion",
-            description = "Retrieves all purchases with amounts converted to the specified currency. " +
+            description = "Retrieves purchases with amounts converted to the specified currency. " +
                     "Exchange rates are fetched from the U.S. Treasury API based on the purchase date " +
-                    "(within 6 months). If no exchange rate is found, convertedAmount and exchangeRate will be null."
+                    "(within 6 months). If no exchange rate is found, convertedAmount and exchangeRate will be null. " +
+                    "With 'from', amounts are read as that currency and converted through USD cross rates. " +
+                    "Accepts the same filters as GET /api/purchases; only matching purchases are converted. " +
+                    "The list is paginated like GET /api/purchases; use format=ndjson to export every purchase."
     )
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Successfully retrieved converted purchases",
                     content = @Content(schema = @Schema(implementation = PurchaseWithConversionDTO.class))),
-            @ApiResponse(responseCode = "400", description = "Exchange rate not found for the specified currency/date",
+            @ApiResponse(responseCode = "400", description = "Exchange rate not found for the specified currency/date, " +
+                    "or invalid limit, cursor or filter range",
                     content = @Content(schema = @Schema(implementation = Map.class))),
             @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing API key")
     })
     public ResponseEntity<List<PurchaseWithConversionDTO>> getPurchasesWithConversion(
             @Parameter(description = "Target currency in country_currency_desc format (e.g., 'Canada-Dollar', 'UK-Pound')",
                     example = "Canada-Dollar")
-            @RequestParam(defaultValue = "United States-Dollar") String currency) {
-        logger.debug("Controller received currency parameter: {}", currency);
-        List<PurchaseWithConversionDTO> purchases = purchaseService.getPurchasesWithConversion(currency);
-        logger.debug("Returning {} purchases", purchases.size());
-        return ResponseEntity.ok(purchases);
+            @RequestParam(defaultValue = "United States-Dollar") String currency,
+            @Parameter(description = "Currency the purchase amounts are read as (default: USD, the stored currency)",
+                    example = "Canada-Dollar")
+            @RequestParam(required = false) String from,
+            @Parameter(description = "Target currency for cross-currency conversion; overrides 'currency'",
+                    example = "Mexico-Peso")
+            @RequestParam(required = false) String to,
+            @ParameterObject PurchaseFilterDTO filter,
+            @Parameter(description = "Page size (default 100, capped at the configured maximum)", example = "100")
+            @RequestParam(required = false) Integer limit,
+            @Parameter(description = "Cursor from the X-Next-Cursor header of the previous page")
+            @RequestParam(required = false) String after) {
+        String target = to != null && !to.isBlank() ? to : currency;
+        String source = from != null && !from.isBlank() ? from : null;
+        logger.debug("Controller received currency parameters: from={}, to={}", source, target);
+        return pageResponse(purchaseService.getPurchasesWithConversionPage(source, target, filter, limit, after));
+    }
+
+    @GetMapping(value = "/converted", params = "format=ndjson", produces = NDJSON)
+    @Operation(
+            summary = "Export purchases with currency conversion as NDJSON",
+            description = "Streams every purchase, converted like GET /api/purchases/converted, as one JSON object " +
+                    "per line, with the same filters. Rows are read through a database cursor and written in chunks as they are converted, " +
+                    "so exports of any size use constant memory."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "NDJSON stream of converted purchases",
+                    content = @Content(mediaType = NDJSON,
+                            schema = @Schema(implementation = PurchaseWithConversionDTO.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing API key")
+    })
+    public ResponseEntity<StreamingResponseBody> exportPurchasesWithConversion(
+            @Parameter(description = "Target currency in country_currency_desc format (e.g., 'Canada-Dollar', 'UK-Pound')",
+                    example = "Canada-Dollar")
+            @RequestParam(defaultValue = "United States-Dollar") String currency,
+            @Parameter(description = "Currency the purchase amounts are read as (default: USD, the stored currency)",
+                    example = "Canada-Dollar")
+            @RequestParam(required = false) String from,
+            @Parameter(description = "Target currency for cross-currency conversion; overrides 'currency'",
+                    example = "Mexico-Peso")
+            @RequestParam(required = false) String to,
+            @ParameterObject PurchaseFilterDTO filter) {
+        String target = to != null && !to.isBlank() ? to : currency;
+        String source = from != null && !from.isBlank() ? from : null;
+        logger.debug("Streaming converted purchases: from={}, to={}", source, target);
+        StreamingResponseBody body = out -> purchaseService.exportPurchasesWithConversion(source, target, filter, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    @GetMapping("/summary")
+    @Operation(
+            summary = "Get purchase totals by month, country and currency",
+            description = "Returns purchase counts and USD totals grouped in the database, optionally filtered like " +
+                    "GET /api/purchases. With 'currency', each group's total is also converted into that currency, " +
+                    "once per exchange rate the group spans."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Successfully computed purchase totals",
+                    content = @Content(schema = @Schema(implementation = PurchaseSummaryDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Unknown groupBy dimension or invalid filter range",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing API key")
+    })
+    public ResponseEntity<List<PurchaseSummaryDTO>> getPurchaseSummary(
+            @Parameter(description = "Dimensions to group by: month, country, currency (default: all three)",
+                    example = "month,country")
+            @RequestParam(required = false) List<String> groupBy,
+            @Parameter(description = "Target currency for converted totals in country_currency_desc format",
+                    example = "Canada-Dollar")
+            @RequestParam(required = false) String currency,
+            @ParameterObject PurchaseFilterDTO filter) {
+        return ResponseEntity.ok(purchaseService.getSummary(filter, groupBy, currency));
     }
 
     @GetMapping("/countries")
@@ -154,6 +338,14 @@ public class PurchaseController {
         return ResponseEntity.notFound().build();
     }
 
+    private <T> ResponseEntity<List<T>> pageResponse(PurchaseService.CursorPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<Map<String, String>> handleValidationExceptions(MethodArgumentNotValidException ex) {
         Map<String, String> errors = new HashMap<>();
@@ -171,5 +363,18 @@ public class PurchaseController {
         error.put("error", ex.getMessage());
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
     }
-}
 
+    @ExceptionHandler(IngestionUnavailableException.class)
+    public ResponseEntity<Map<String, String>> handleIngestionUnavailableException(IngestionUnavailableException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgumentException(IllegalArgumentException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+}
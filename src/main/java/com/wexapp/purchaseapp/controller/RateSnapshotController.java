@@ -0,0 +1,73 @@
+package com.wexapp.purchaseapp.controller;
+
+import com.wexapp.purchaseapp.dto.RateSnapshotDTO;
+import com.wexapp.purchaseapp.service.RateSnapshotService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/rates/snapshot")
+@CrossOrigin(origins = "*")
+@Tag(name = "Rate Snapshot Controller", description = "APIs for the memory-mapped exchange rate snapshot loaded at startup")
+@SecurityRequirement(name = "ApiKeyAuth")
+public class RateSnapshotController {
+
+    @Autowired
+    private RateSnapshotService rateSnapshotService;
+
+    @GetMapping
+    @Operation(
+            summary = "Get the current rate snapshot",
+            description = "Describes the exchange rate snapshot currently served from the memory-mapped file"
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Snapshot loaded",
+                    content = @Content(schema = @Schema(implementation = RateSnapshotDTO.class))),
+            @ApiResponse(responseCode = "404", description = "No snapshot loaded"),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing API key")
+    })
+    public ResponseEntity<RateSnapshotDTO> getSnapshot() {
+        RateSnapshotDTO snapshot = rateSnapshotService.describe();
+        return snapshot != null ? ResponseEntity.ok(snapshot) : ResponseEntity.notFound().build();
+    }
+
+    @PostMapping
+    @Operation(
+            summary = "Rebuild the rate snapshot",
+            description = "Rebuilds the snapshot file from the exchange_rates table ('db') or from the U.S. Treasury API " +
+                    "('treasury'), then serves rates from the new file. Instances that start with the file present " +
+                    "serve conversions without any network access."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Snapshot rebuilt",
+                    content = @Content(schema = @Schema(implementation = RateSnapshotDTO.class))),
+            @ApiResponse(responseCode = "400", description = "Unknown source or no stored rates",
+                    content = @Content(schema = @Schema(implementation = Map.class))),
+            @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid or missing API key")
+    })
+    public ResponseEntity<RateSnapshotDTO> rebuildSnapshot(
+            @Parameter(description = "Where to read rates from: 'db' or 'treasury'", example = "db")
+            @RequestParam(defaultValue = RateSnapshotService.SOURCE_DATABASE) String source) {
+        return ResponseEntity.ok(rateSnapshotService.rebuild(source));
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<Map<String, String>> handleIllegalArgumentException(IllegalArgumentException ex) {
+        Map<String, String> error = new HashMap<>();
+        error.put("error", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+    }
+}
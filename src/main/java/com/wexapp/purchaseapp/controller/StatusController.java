@@ -0,0 +1,68 @@
+package com.wexapp.purchaseapp.controller;
+
+import com.wexapp.purchaseapp.dto.TreasuryStatusDTO;
+import com.wexapp.purchaseapp.dto.WarmUpStatusDTO;
+import com.wexapp.purchaseapp.service.CircuitBreaker;
+import com.wexapp.purchaseapp.service.TreasuryClient;
+import com.wexapp.purchaseapp.service.WarmUpService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/status")
+@CrossOrigin(origins = "*")
+@Tag(name = "Status Controller", description = "Operational status of the application and its dependencies. " +
+        "These endpoints do not require authentication.")
+public class StatusController {
+
+    @Autowired
+    private TreasuryClient treasuryClient;
+
+    @Autowired
+    private WarmUpService warmUpService;
+
+    @GetMapping("/ready")
+    @Operation(
+            summary = "Readiness check for load balancers",
+            description = "Returns 200 once the startup warm-up (currency catalog and rate preloading) has finished " +
+                    "or its deadline has passed, and 503 while the instance is still warming up."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Instance is ready for traffic",
+                    content = @Content(schema = @Schema(implementation = WarmUpStatusDTO.class))),
+            @ApiResponse(responseCode = "503", description = "Instance is still warming up",
+                    content = @Content(schema = @Schema(implementation = WarmUpStatusDTO.class)))
+    })
+    public ResponseEntity<WarmUpStatusDTO> getReadiness() {
+        WarmUpStatusDTO status = warmUpService.status();
+        return ResponseEntity.status(status.isReady() ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE).body(status);
+    }
+
+    @GetMapping("/treasury")
+    @Operation(
+            summary = "Get Treasury API circuit breaker state",
+            description = "Shows whether calls to the U.S. Treasury API are currently allowed. While the circuit is OPEN, " +
+                    "conversions use the last known exchange rates and are marked with rateStale=true."
+    )
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Current circuit breaker state",
+                    content = @Content(schema = @Schema(implementation = TreasuryStatusDTO.class)))
+    })
+    public ResponseEntity<TreasuryStatusDTO> getTreasuryStatus() {
+        CircuitBreaker.Snapshot snapshot = treasuryClient.circuitState();
+        return ResponseEntity.ok(new TreasuryStatusDTO(
+                snapshot.state().name(),
+                snapshot.consecutiveFailures(),
+                snapshot.openedAt(),
+                snapshot.lastFailure(),
+                snapshot.lastFailureAt()));
+    }
+}
@@ -0,0 +1,36 @@
+package com.wexapp.purchaseapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Outcome of one purchase in a batch, in request order")
+public class PurchaseBatchResultDTO {
+    public static final String CREATED = "CREATED";
+    public static final String REJECTED = "REJECTED";
+
+    @Schema(description = "Position of the purchase in the request (0-based)", example = "0")
+    private int index;
+
+    @Schema(description = "CREATED or REJECTED", example = "CREATED")
+    private String status;
+
+    @Schema(description = "UUID of the created purchase", example = "550e8400-e29b-41d4-a716-446655440000", nullable = true)
+    private String id;
+
+    @Schema(description = "Currency code set from the country", example = "Canada-Dollar", nullable = true)
+    private String currencyCode;
+
+    @Schema(description = "Validation errors by field, for a rejected purchase", nullable = true)
+    private Map<String, String> errors;
+
+    public static PurchaseBatchResultDTO rejected(int index, Map<String, String> errors) {
+        return new PurchaseBatchResultDTO(index, REJECTED, null, null, errors);
+    }
+}
@@ -0,0 +1,36 @@
+package com.wexapp.purchaseapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Optional purchase filters; all given criteria must match")
+public class PurchaseFilterDTO {
+    @Schema(description = "Earliest purchase date (inclusive)", example = "2025-01-01")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate startDate;
+
+    @Schema(description = "Latest purchase date (inclusive)", example = "2025-01-31")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate endDate;
+
+    @Schema(description = "Country of the purchase", example = "Canada")
+    private String country;
+
+    @Schema(description = "Currency in country_currency_desc format", example = "Canada-Dollar")
+    private String currencyCode;
+
+    @Schema(description = "Smallest purchase amount in USD (inclusive)", example = "10.00")
+    private BigDecimal minAmount;
+
+    @Schema(description = "Largest purchase amount in USD (inclusive)", example = "500.00")
+    private BigDecimal maxAmount;
+}
@@ -0,0 +1,20 @@
+package com.wexapp.purchaseapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "A rejected CSV row")
+public class PurchaseImportErrorDTO {
+    @Schema(description = "Data row number (1-based, header not counted)", example = "42")
+    private long row;
+
+    @Schema(description = "Errors by field")
+    private Map<String, String> errors;
+}
@@ -0,0 +1,38 @@
+package com.wexapp.purchaseapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Outcome of a CSV purchase import")
+public class PurchaseImportResultDTO {
+    @Schema(description = "Whether the whole file was read and every chunk written", example = "true")
+    private boolean completed;
+
+    @Schema(description = "Data rows read from the file", example = "250000")
+    private long rowsRead;
+
+    @Schema(description = "Purchases created (committed)", example = "249990")
+    private long imported;
+
+    @Schema(description = "Rows rejected by parsing or validation", example = "10")
+    private long rejected;
+
+    @Schema(description = "Chunks committed, each in its own transaction", example = "250")
+    private long chunksCommitted;
+
+    @Schema(description = "Time spent on the import in milliseconds", example = "41250")
+    private long durationMs;
+
+    @Schema(description = "Rejected rows, up to purchases.import.max-reported-errors, by row number")
+    private List<PurchaseImportErrorDTO> errors;
+
+    @Schema(description = "Why the import stopped early; rows counted as imported stay committed", nullable = true)
+    private String failure;
+}
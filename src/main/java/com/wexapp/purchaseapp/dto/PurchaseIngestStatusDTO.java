@@ -0,0 +1,25 @@
+package com.wexapp.purchaseapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "State of a purchase accepted with POST /api/purchases?async=true")
+public class PurchaseIngestStatusDTO {
+    public static final String QUEUED = "QUEUED";
+    public static final String COMMITTED = "COMMITTED";
+    public static final String FAILED = "FAILED";
+
+    @Schema(description = "Purchase UUID", example = "550e8400-e29b-41d4-a716-446655440000")
+    private String id;
+
+    @Schema(description = "QUEUED, COMMITTED or FAILED", example = "COMMITTED")
+    private String state;
+
+    @Schema(description = "Why the insert failed, for a FAILED purchase", nullable = true)
+    private String error;
+}
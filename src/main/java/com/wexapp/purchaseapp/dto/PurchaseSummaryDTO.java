@@ -0,0 +1,37 @@
+package com.wexapp.purchaseapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Purchase totals of one group; dimensions that were not grouped on are null")
+public class PurchaseSummaryDTO {
+    @Schema(description = "Month of the purchases (yyyy-MM)", example = "2025-01", nullable = true)
+    private String month;
+
+    @Schema(description = "Country name", example = "Canada", nullable = true)
+    private String country;
+
+    @Schema(description = "Currency code in country_currency_desc format", example = "Canada-Dollar", nullable = true)
+    private String currencyCode;
+
+    @Schema(description = "Number of purchases in the group", example = "42")
+    private long purchaseCount;
+
+    @Schema(description = "Sum of purchase amounts in USD", example = "5234.50")
+    private BigDecimal totalAmount;
+
+    @Schema(description = "Total converted into the target currency (null without a target currency, or if a " +
+            "purchase date in the group has no exchange rate)", example = "7066.58", nullable = true)
+    private BigDecimal convertedTotal;
+
+    @Schema(description = "True when a stale exchange rate was used for part of the group (null if not converted)",
+            example = "false", nullable = true)
+    private Boolean rateStale;
+}
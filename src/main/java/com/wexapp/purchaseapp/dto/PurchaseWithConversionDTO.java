@@ -38,5 +38,9 @@ public class PurchaseWithConversionDTO {
     @Schema(description = "Exchange rate used for conversion (null if exchange rate not found)", 
             example = "1.35", nullable = true)
     private BigDecimal exchangeRate;
+
+    @Schema(description = "True when the Treasury API was unavailable and the last known exchange rate was used " +
+            "(null if exchange rate not found)", example = "false", nullable = true)
+    private Boolean rateStale;
 }
 
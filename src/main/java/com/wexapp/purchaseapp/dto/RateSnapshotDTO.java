@@ -0,0 +1,33 @@
+package com.wexapp.purchaseapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Binary exchange rate snapshot served memory-mapped by the application")
+public class RateSnapshotDTO {
+    @Schema(description = "Snapshot file location", example = "/app/data/exchange-rates.snapshot")
+    private String path;
+
+    @Schema(description = "Number of exchange rate records", example = "48210")
+    private int rates;
+
+    @Schema(description = "Number of currencies (country_currency_desc values)", example = "172")
+    private int currencies;
+
+    @Schema(description = "First date the snapshot covers", example = "2001-01-01")
+    private LocalDate coveredFrom;
+
+    @Schema(description = "Last date the snapshot covers", example = "2025-06-30")
+    private LocalDate coveredTo;
+
+    @Schema(description = "When the snapshot was built")
+    private Instant createdAt;
+}
@@ -0,0 +1,30 @@
+package com.wexapp.purchaseapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "State of the circuit breaker guarding the U.S. Treasury API")
+public class TreasuryStatusDTO {
+    @Schema(description = "Circuit state: CLOSED (calls allowed), OPEN (calls rejected, stored rates used) " +
+            "or HALF_OPEN (one trial call in progress)", example = "CLOSED")
+    private String circuitState;
+
+    @Schema(description = "Consecutive failed Treasury calls", example = "0")
+    private int consecutiveFailures;
+
+    @Schema(description = "When the circuit last opened (null while closed)", nullable = true)
+    private Instant openedAt;
+
+    @Schema(description = "Last Treasury call failure", nullable = true)
+    private String lastFailure;
+
+    @Schema(description = "When the last failure happened", nullable = true)
+    private Instant lastFailureAt;
+}
@@ -0,0 +1,39 @@
+package com.wexapp.purchaseapp.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Progress of the startup warm-up that gates readiness")
+public class WarmUpStatusDTO {
+    @Schema(description = "WARMING_UP, READY (warm-up finished), DEADLINE_PASSED (ready before warm-up finished) " +
+            "or DISABLED", example = "READY")
+    private String state;
+
+    @Schema(description = "Whether the instance should receive traffic", example = "true")
+    private boolean ready;
+
+    @Schema(description = "When warm-up started", nullable = true)
+    private Instant startedAt;
+
+    @Schema(description = "When the instance became ready", nullable = true)
+    private Instant finishedAt;
+
+    @Schema(description = "Whether the full country/currency catalog was loaded from Treasury", example = "true")
+    private boolean catalogLoaded;
+
+    @Schema(description = "Currencies whose rate windows are preloaded (used by purchases plus popular ones)", example = "24")
+    private int currencies;
+
+    @Schema(description = "Currencies whose rate window was loaded", example = "24")
+    private int currenciesLoaded;
+
+    @Schema(description = "Currencies whose rate window could not be loaded", example = "0")
+    private int currenciesFailed;
+}
@@ -0,0 +1,23 @@
+package com.wexapp.purchaseapp.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dictionary entry for purchase countries; purchases store the small id instead of the name
+ */
+@Entity
+@Table(name = "countries")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Country {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Short id;
+
+    @Column(nullable = false, unique = true, length = 100)
+    private String name;
+}
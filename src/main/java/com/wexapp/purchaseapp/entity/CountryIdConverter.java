@@ -0,0 +1,30 @@
+package com.wexapp.purchaseapp.entity;
+
+import com.wexapp.purchaseapp.service.PurchaseDictionary;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Stores a purchase's country name as its countries.id
+ * The name must have been registered with the dictionary before the purchase is saved
+ * Created by Hibernate through Spring, so the dictionary is injected (lazily, as it needs the
+ * repositories of the EntityManagerFactory being built)
+ */
+@Converter
+public class CountryIdConverter implements AttributeConverter<String, Short> {
+
+    @Autowired
+    private ObjectProvider<PurchaseDictionary> dictionary;
+
+    @Override
+    public Short convertToDatabaseColumn(String country) {
+        return country == null ? null : dictionary.getObject().registeredCountryId(country);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short id) {
+        return id == null ? null : dictionary.getObject().countryName(id);
+    }
+}
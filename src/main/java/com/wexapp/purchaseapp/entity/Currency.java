@@ -0,0 +1,23 @@
+package com.wexapp.purchaseapp.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dictionary entry for purchase currencies; purchases store the small id instead of the code
+ */
+@Entity
+@Table(name = "currencies")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Currency {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Short id;
+
+    @Column(nullable = false, unique = true, length = 100)
+    private String code; // country_currency_desc (e.g., "Canada-Dollar")
+}
@@ -0,0 +1,28 @@
+package com.wexapp.purchaseapp.entity;
+
+import com.wexapp.purchaseapp.service.PurchaseDictionary;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+
+/**
+ * Stores a purchase's currency code (country_currency_desc) as its currencies.id
+ * The code must have been registered with the dictionary before the row is saved
+ */
+@Converter
+public class CurrencyIdConverter implements AttributeConverter<String, Short> {
+
+    @Autowired
+    private ObjectProvider<PurchaseDictionary> dictionary;
+
+    @Override
+    public Short convertToDatabaseColumn(String currencyCode) {
+        return currencyCode == null ? null : dictionary.getObject().registeredCurrencyId(currencyCode);
+    }
+
+    @Override
+    public String convertToEntityAttribute(Short id) {
+        return id == null ? null : dictionary.getObject().currencyCode(id);
+    }
+}
@@ -0,0 +1,41 @@
+package com.wexapp.purchaseapp.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "exchange_rates",
+        uniqueConstraints = @UniqueConstraint(name = "uk_exchange_rates_currency_date",
+                columnNames = {"currency_code", "record_date"}),
+        indexes = @Index(name = "idx_exchange_rates_record_date", columnList = "record_date"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ExchangeRate {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "currency_code", nullable = false, length = 100)
+    private String currencyCode; // Stores country_currency_desc (e.g., "Canada-Dollar")
+
+    @Column(name = "record_date", nullable = false)
+    private LocalDate recordDate;
+
+    @Column(name = "exchange_rate", nullable = false, precision = 19, scale = 6)
+    private BigDecimal exchangeRate;
+
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    protected void onCreate() {
+        createdAt = LocalDateTime.now();
+    }
+}
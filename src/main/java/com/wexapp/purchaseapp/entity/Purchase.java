@@ -4,6 +4,8 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -11,14 +13,22 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "purchases")
+@Table(name = "purchases",
+        indexes = {
+                @Index(name = "idx_purchases_date_id", columnList = "date DESC, id ASC"),
+                @Index(name = "idx_purchases_country_date", columnList = "country_id, date"),
+                @Index(name = "idx_purchases_currency_date", columnList = "currency_id, date"),
+                @Index(name = "idx_purchases_amount", columnList = "purchase_amount")
+        })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Purchase {
+    // Time-ordered (UUIDv7) and stored as 16 bytes; exposed in the canonical string form
     @Id
-    @Column(columnDefinition = "CHAR(36)")
-    private String id;
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(columnDefinition = "BINARY(16)")
+    private UUID id;
 
     @Column(nullable = false)
     private LocalDate date;
@@ -29,11 +39,15 @@ public class Purchase {
     @Column(nullable = false, precision = 10, scale = 2)
     private BigDecimal purchaseAmount;
 
-    @Column(nullable = false, length = 100)
+    // Dictionary-encoded: stored as countries.id, exposed as the country name
+    @Convert(converter = CountryIdConverter.class)
+    @Column(name = "country_id", nullable = false)
     private String country;
 
-    @Column(nullable = false, length = 100)
-    private String currencyCode; // Stores country_currency_desc (e.g., "Canada-Dollar")
+    // Dictionary-encoded: stored as currencies.id, exposed as country_currency_desc (e.g., "Canada-Dollar")
+    @Convert(converter = CurrencyIdConverter.class)
+    @Column(name = "currency_id", nullable = false)
+    private String currencyCode;
 
     @Column(name = "created_at", updatable = false)
     private LocalDateTime createdAt;
@@ -41,7 +55,7 @@ public class Purchase {
     @PrePersist
     protected void onCreate() {
         if (id == null) {
-            id = UUID.randomUUID().toString();
+            id = TimeOrderedUuid.next();
         }
         createdAt = LocalDateTime.now();
     }
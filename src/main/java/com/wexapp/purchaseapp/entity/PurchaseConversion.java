@@ -0,0 +1,61 @@
+package com.wexapp.purchaseapp.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A purchase converted into one target currency, kept until a newer rate lands in its window
+ * Only conversions from USD with a fresh (non-stale) rate are stored
+ */
+@Entity
+@Table(name = "purchase_conversions",
+        uniqueConstraints = @UniqueConstraint(name = "uk_purchase_conversions_purchase_currency",
+                columnNames = {"purchase_id", "currency_id"}),
+        indexes = @Index(name = "idx_purchase_conversions_currency_date", columnList = "currency_id, purchase_date"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PurchaseConversion {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @JdbcTypeCode(SqlTypes.BINARY)
+    @Column(name = "purchase_id", nullable = false, columnDefinition = "BINARY(16)")
+    private UUID purchaseId;
+
+    // Dictionary-encoded like purchases.currency_id
+    @Convert(converter = CurrencyIdConverter.class)
+    @Column(name = "currency_id", nullable = false)
+    private String targetCurrency;
+
+    // Copied from the purchase so invalidation does not need a join
+    @Column(name = "purchase_date", nullable = false)
+    private LocalDate purchaseDate;
+
+    @Column(name = "converted_amount", nullable = false, precision = 19, scale = 2)
+    private BigDecimal convertedAmount;
+
+    @Column(name = "exchange_rate", nullable = false, precision = 24, scale = 12)
+    private BigDecimal exchangeRate;
+
+    @Column(name = "rate_date", nullable = false)
+    private LocalDate rateDate;
+
+    @Column(name = "computed_at", updatable = false)
+    private LocalDateTime computedAt;
+
+    @PrePersist
+    protected void onCreate() {
+        computedAt = LocalDateTime.now();
+    }
+}
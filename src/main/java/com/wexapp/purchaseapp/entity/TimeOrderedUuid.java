@@ -0,0 +1,61 @@
+package com.wexapp.purchaseapp.entity;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * UUID version 7 (RFC 9562): 48-bit Unix millisecond timestamp, then a 12-bit sequence, then random bits
+ * Ids generated later sort after earlier ones as bytes, so new purchases are appended at the end of the
+ * BINARY(16) primary key instead of at random pages. Within one millisecond the sequence keeps ids
+ * from this JVM increasing; if it runs out, the timestamp is borrowed from the next millisecond
+ */
+public final class TimeOrderedUuid {
+
+    private static final int MAX_SEQUENCE = 0xFFF;
+
+    private static final Object lock = new Object();
+    private static long lastMillis;
+    private static int sequence;
+
+    private TimeOrderedUuid() {
+    }
+
+    public static UUID next() {
+        long millis;
+        int seq;
+        synchronized (lock) {
+            long now = System.currentTimeMillis();
+            if (now > lastMillis) {
+                lastMillis = now;
+                // Random start in the lower half leaves room for many ids in the same millisecond
+                sequence = ThreadLocalRandom.current().nextInt(MAX_SEQUENCE / 2 + 1);
+            } else if (sequence < MAX_SEQUENCE) {
+                // Same millisecond, or the clock went back: stay on the last timestamp
+                sequence++;
+            } else {
+                lastMillis++;
+                sequence = 0;
+            }
+            millis = lastMillis;
+            seq = sequence;
+        }
+        long mostSigBits = (millis << 16) | 0x7000L | seq;
+        long leastSigBits = (ThreadLocalRandom.current().nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * Parse the canonical string form, or empty if it is not a UUID (callers answer 404)
+     */
+    public static Optional<UUID> parse(String id) {
+        if (id == null || id.length() != 36) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(UUID.fromString(id));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+}
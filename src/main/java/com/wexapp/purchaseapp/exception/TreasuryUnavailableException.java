@@ -0,0 +1,7 @@
+package com.wexapp.purchaseapp.exception;
+
+public class TreasuryUnavailableException extends RuntimeException {
+    public TreasuryUnavailableException(String message) {
+        super(message);
+    }
+}
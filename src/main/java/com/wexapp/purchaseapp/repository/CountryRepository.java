@@ -0,0 +1,12 @@
+package com.wexapp.purchaseapp.repository;
+
+import com.wexapp.purchaseapp.entity.Country;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CountryRepository extends JpaRepository<Country, Short> {
+    Optional<Country> findByName(String name);
+}
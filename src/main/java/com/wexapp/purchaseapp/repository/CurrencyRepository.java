@@ -0,0 +1,12 @@
+package com.wexapp.purchaseapp.repository;
+
+import com.wexapp.purchaseapp.entity.Currency;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface CurrencyRepository extends JpaRepository<Currency, Short> {
+    Optional<Currency> findByCode(String code);
+}
@@ -0,0 +1,19 @@
+package com.wexapp.purchaseapp.repository;
+
+import com.wexapp.purchaseapp.entity.ExchangeRate;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ExchangeRateRepository extends JpaRepository<ExchangeRate, Long> {
+    @Query("SELECT MAX(e.recordDate) FROM ExchangeRate e")
+    LocalDate findLatestRecordDate();
+
+    List<ExchangeRate> findAllByOrderByRecordDateAsc();
+
+    List<ExchangeRate> findByRecordDateAfterOrderByRecordDateAsc(LocalDate recordDate);
+}
@@ -0,0 +1,37 @@
+package com.wexapp.purchaseapp.repository;
+
+import com.wexapp.purchaseapp.entity.PurchaseConversion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface PurchaseConversionRepository extends JpaRepository<PurchaseConversion, Long> {
+
+    // Served by uk_purchase_conversions_purchase_currency
+    @Query("SELECT new com.wexapp.purchaseapp.repository.StoredConversion(c.purchaseId, c.convertedAmount, c.exchangeRate) "
+            + "FROM PurchaseConversion c WHERE c.targetCurrency = :targetCurrency AND c.purchaseId IN :purchaseIds")
+    List<StoredConversion> findStored(@Param("targetCurrency") String targetCurrency,
+                                      @Param("purchaseIds") Collection<UUID> purchaseIds);
+
+    @Modifying
+    @Query("DELETE FROM PurchaseConversion c WHERE c.purchaseId = :purchaseId")
+    int deleteByPurchaseId(@Param("purchaseId") UUID purchaseId);
+
+    /**
+     * Conversions a rate recorded in [earliest, latest] may replace: purchases on or after the
+     * earliest new record whose stored rate predates the latest one
+     */
+    @Modifying
+    @Query("DELETE FROM PurchaseConversion c WHERE c.targetCurrency = :targetCurrency "
+            + "AND c.purchaseDate >= :earliest AND c.rateDate < :latest")
+    int deleteOutdated(@Param("targetCurrency") String targetCurrency, @Param("earliest") LocalDate earliest,
+                       @Param("latest") LocalDate latest);
+}
@@ -0,0 +1,9 @@
+package com.wexapp.purchaseapp.repository;
+
+import java.time.LocalDate;
+
+/**
+ * Earliest and latest purchase date among the purchases matching a query
+ */
+public record PurchaseDateRange(LocalDate earliest, LocalDate latest) {
+}
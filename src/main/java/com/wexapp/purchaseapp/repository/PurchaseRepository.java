@@ -2,12 +2,29 @@ package com.wexapp.purchaseapp.repository;
 
 import com.wexapp.purchaseapp.entity.Purchase;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
 @Repository
-public interface PurchaseRepository extends JpaRepository<Purchase, String> {
-    List<Purchase> findAllByOrderByDateDesc();
-}
+public interface PurchaseRepository extends JpaRepository<Purchase, UUID>, JpaSpecificationExecutor<Purchase>,
+        PurchaseRepositoryCustom {
+
+    // Rows per driver round trip when streaming (MySQL needs useCursorFetch=true on the URL)
+    int STREAM_FETCH_SIZE = 500;
+
+    @Query("SELECT DISTINCT p.currencyCode FROM Purchase p")
+    List<String> findDistinctCurrencyCodes();
 
+    @Query("SELECT MIN(p.date) FROM Purchase p")
+    LocalDate findEarliestDate();
+
+    @Query("SELECT p.id FROM Purchase p WHERE p.id IN :ids")
+    List<UUID> findExistingIds(@Param("ids") Collection<UUID> ids);
+}
@@ -0,0 +1,32 @@
+package com.wexapp.purchaseapp.repository;
+
+import com.wexapp.purchaseapp.entity.Purchase;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface PurchaseRepositoryCustom {
+
+    /**
+     * The first {@code limit} matching purchases in listing order, as {@link PurchaseRow} projections
+     */
+    List<PurchaseRow> findRows(Specification<Purchase> spec, int limit);
+
+    /**
+     * Forward-only cursor over the matching purchases in listing order, for exports
+     * Must be consumed (and closed) inside a transaction; rows are fetched from the driver in batches
+     */
+    Stream<PurchaseRow> streamRows(Specification<Purchase> spec);
+
+    /**
+     * MIN and MAX purchase date of the matching purchases; empty when nothing matches
+     */
+    Optional<PurchaseDateRange> findDateRange(Specification<Purchase> spec);
+
+    /**
+     * SUM and COUNT of the matching purchases, grouped in the database on the chosen dimensions
+     */
+    List<PurchaseTotal> sumByGroup(Specification<Purchase> spec, boolean byDate, boolean byCountry, boolean byCurrency);
+}
@@ -0,0 +1,128 @@
+package com.wexapp.purchaseapp.repository;
+
+import com.wexapp.purchaseapp.entity.Purchase;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Queries the derived Specification queries cannot express: column projections, streaming with
+ * fetch-size hints, and grouped aggregates
+ */
+public class PurchaseRepositoryImpl implements PurchaseRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<PurchaseRow> findRows(Specification<Purchase> spec, int limit) {
+        return rowQuery(spec).setMaxResults(limit).getResultList();
+    }
+
+    @Override
+    public Stream<PurchaseRow> streamRows(Specification<Purchase> spec) {
+        return rowQuery(spec)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, PurchaseRepository.STREAM_FETCH_SIZE)
+                .getResultStream();
+    }
+
+    @Override
+    public Optional<PurchaseDateRange> findDateRange(Specification<Purchase> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Purchase> root = query.from(Purchase.class);
+        query.multiselect(
+                cb.least(root.<LocalDate>get(PurchaseSpecifications.DATE)).alias("earliest"),
+                cb.greatest(root.<LocalDate>get(PurchaseSpecifications.DATE)).alias("latest"));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        Tuple row = entityManager.createQuery(query).getSingleResult();
+        LocalDate earliest = row.get("earliest", LocalDate.class);
+        return earliest == null
+                ? Optional.empty()
+                : Optional.of(new PurchaseDateRange(earliest, row.get("latest", LocalDate.class)));
+    }
+
+    @Override
+    public List<PurchaseTotal> sumByGroup(Specification<Purchase> spec, boolean byDate, boolean byCountry,
+                                          boolean byCurrency) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Purchase> root = query.from(Purchase.class);
+
+        List<Expression<?>> groups = new ArrayList<>();
+        List<Selection<?>> selections = new ArrayList<>();
+        if (byDate) {
+            groups.add(root.get(PurchaseSpecifications.DATE));
+            selections.add(root.get(PurchaseSpecifications.DATE).alias(PurchaseSpecifications.DATE));
+        }
+        if (byCountry) {
+            groups.add(root.get(PurchaseSpecifications.COUNTRY));
+            selections.add(root.get(PurchaseSpecifications.COUNTRY).alias(PurchaseSpecifications.COUNTRY));
+        }
+        if (byCurrency) {
+            groups.add(root.get(PurchaseSpecifications.CURRENCY_CODE));
+            selections.add(root.get(PurchaseSpecifications.CURRENCY_CODE).alias(PurchaseSpecifications.CURRENCY_CODE));
+        }
+        selections.add(cb.sum(root.<BigDecimal>get(PurchaseSpecifications.PURCHASE_AMOUNT)).alias("amount"));
+        selections.add(cb.count(root).alias("count"));
+
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.multiselect(selections).groupBy(groups);
+
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(row -> new PurchaseTotal(
+                        byDate ? row.get(PurchaseSpecifications.DATE, LocalDate.class) : null,
+                        byCountry ? row.get(PurchaseSpecifications.COUNTRY, String.class) : null,
+                        byCurrency ? row.get(PurchaseSpecifications.CURRENCY_CODE, String.class) : null,
+                        row.get("amount", BigDecimal.class),
+                        row.get("count", Long.class)))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * SELECT of only the returned columns, in listing order; country and currency still go through
+     * their dictionary converters
+     */
+    private TypedQuery<PurchaseRow> rowQuery(Specification<Purchase> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PurchaseRow> query = cb.createQuery(PurchaseRow.class);
+        Root<Purchase> root = query.from(Purchase.class);
+        query.select(cb.construct(PurchaseRow.class,
+                root.get(PurchaseSpecifications.ID),
+                root.get(PurchaseSpecifications.DATE),
+                root.get(PurchaseSpecifications.DESCRIPTION),
+                root.get(PurchaseSpecifications.PURCHASE_AMOUNT),
+                root.get(PurchaseSpecifications.COUNTRY),
+                root.get(PurchaseSpecifications.CURRENCY_CODE)));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(PurchaseSpecifications.LISTING_ORDER, root, cb));
+        return entityManager.createQuery(query);
+    }
+}
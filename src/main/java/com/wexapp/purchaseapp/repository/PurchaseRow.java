@@ -0,0 +1,20 @@
+package com.wexapp.purchaseapp.repository;
+
+import com.wexapp.purchaseapp.entity.Purchase;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+/**
+ * The purchase columns the API returns, selected as a constructor projection
+ * Not a managed entity: no persistence-context entry, no snapshot for dirty checking
+ */
+public record PurchaseRow(UUID id, LocalDate date, String description, BigDecimal purchaseAmount,
+                          String country, String currencyCode) {
+
+    public static PurchaseRow of(Purchase purchase) {
+        return new PurchaseRow(purchase.getId(), purchase.getDate(), purchase.getDescription(),
+                purchase.getPurchaseAmount(), purchase.getCountry(), purchase.getCurrencyCode());
+    }
+}
@@ -0,0 +1,79 @@
+package com.wexapp.purchaseapp.repository;
+
+import com.wexapp.purchaseapp.dto.PurchaseFilterDTO;
+import com.wexapp.purchaseapp.entity.Purchase;
+import jakarta.persistence.criteria.Predicate;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Criteria queries over purchases, composed from the optional filters
+ * Every predicate maps onto an index of the purchases table: date ranges and keyset positions use
+ * idx_purchases_date_id, country/currency use idx_purchases_country_date / idx_purchases_currency_date
+ */
+public final class PurchaseSpecifications {
+
+    static final String ID = "id";
+    static final String DATE = "date";
+    static final String DESCRIPTION = "description";
+    static final String COUNTRY = "country";
+    static final String CURRENCY_CODE = "currencyCode";
+    static final String PURCHASE_AMOUNT = "purchaseAmount";
+
+    // Listing order: newest first, id as the tie-breaker so keyset positions are unique
+    public static final Sort LISTING_ORDER = Sort.by(Sort.Order.desc(DATE), Sort.Order.asc(ID));
+
+    private PurchaseSpecifications() {
+    }
+
+    /**
+     * Purchases matching every criterion set on the filter; a filter with nothing set matches all
+     * Country and currency are compared by name and bound through the dictionary converters
+     */
+    public static Specification<Purchase> matching(PurchaseFilterDTO filter) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (filter.getStartDate() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.<LocalDate>get(DATE), filter.getStartDate()));
+            }
+            if (filter.getEndDate() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.<LocalDate>get(DATE), filter.getEndDate()));
+            }
+            if (filter.getCountry() != null) {
+                predicates.add(cb.equal(root.<String>get(COUNTRY), filter.getCountry()));
+            }
+            if (filter.getCurrencyCode() != null) {
+                predicates.add(cb.equal(root.<String>get(CURRENCY_CODE), filter.getCurrencyCode()));
+            }
+            if (filter.getMinAmount() != null) {
+                predicates.add(cb.greaterThanOrEqualTo(root.<BigDecimal>get(PURCHASE_AMOUNT), filter.getMinAmount()));
+            }
+            if (filter.getMaxAmount() != null) {
+                predicates.add(cb.lessThanOrEqualTo(root.<BigDecimal>get(PURCHASE_AMOUNT), filter.getMaxAmount()));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+
+    /**
+     * The purchase with the given id (primary key lookup)
+     */
+    public static Specification<Purchase> withId(UUID id) {
+        return (root, query, cb) -> cb.equal(root.<UUID>get(ID), id);
+    }
+
+    /**
+     * Purchases after a keyset position in {@link #LISTING_ORDER}
+     */
+    public static Specification<Purchase> after(LocalDate date, UUID id) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.<LocalDate>get(DATE), date),
+                cb.and(cb.equal(root.<LocalDate>get(DATE), date), cb.greaterThan(root.<UUID>get(ID), id)));
+    }
+}
@@ -0,0 +1,11 @@
+package com.wexapp.purchaseapp.repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Sum and count of the purchases sharing one group key
+ * Dimensions that were not grouped on are null
+ */
+public record PurchaseTotal(LocalDate date, String country, String currencyCode, BigDecimal amount, long count) {
+}
@@ -0,0 +1,10 @@
+package com.wexapp.purchaseapp.repository;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * The columns of a stored conversion a listing needs, selected as a constructor projection
+ */
+public record StoredConversion(UUID purchaseId, BigDecimal convertedAmount, BigDecimal exchangeRate) {
+}
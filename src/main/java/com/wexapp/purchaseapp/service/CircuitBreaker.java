@@ -0,0 +1,107 @@
+package com.wexapp.purchaseapp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Minimal circuit breaker for an upstream dependency
+ * Opens after a number of consecutive failures and rejects calls while open; once the open
+ * period has passed a single trial call is let through (half-open) and its outcome decides
+ * whether the circuit closes again or stays open for another period
+ */
+public class CircuitBreaker {
+
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private Instant openedAt;
+    private boolean trialInFlight;
+    private String lastFailure;
+    private Instant lastFailureAt;
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        this(name, failureThreshold, openDuration, Clock.systemUTC());
+    }
+
+    CircuitBreaker(String name, int failureThreshold, Duration openDuration, Clock clock) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    /**
+     * Ask permission for one call
+     *
+     * @return false while the circuit is open (or a half-open trial is already running)
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.instant().isBefore(openedAt.plus(openDuration))) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                trialInFlight = true;
+                logger.info("Circuit '{}' half-open, trying one call", name);
+                return true;
+            default:
+                if (trialInFlight) {
+                    return false;
+                }
+                trialInFlight = true;
+                return true;
+        }
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        trialInFlight = false;
+        if (state != State.CLOSED) {
+            logger.info("Circuit '{}' closed", name);
+            state = State.CLOSED;
+            openedAt = null;
+        }
+    }
+
+    public synchronized void onFailure(Throwable error) {
+        consecutiveFailures++;
+        trialInFlight = false;
+        lastFailure = error.getClass().getSimpleName() + ": " + error.getMessage();
+        lastFailureAt = clock.instant();
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            logger.warn("Circuit '{}' opened after {} consecutive failure(s): {}", name, consecutiveFailures, lastFailure);
+            state = State.OPEN;
+            openedAt = clock.instant();
+        }
+    }
+
+    /**
+     * A permitted call was abandoned without an outcome (e.g. cancelled); free the trial slot
+     */
+    public synchronized void onCancel() {
+        trialInFlight = false;
+    }
+
+    public synchronized Snapshot snapshot() {
+        return new Snapshot(name, state, consecutiveFailures, openedAt, lastFailure, lastFailureAt);
+    }
+
+    public record Snapshot(String name, State state, int consecutiveFailures, Instant openedAt,
+                           String lastFailure, Instant lastFailureAt) {
+    }
+}
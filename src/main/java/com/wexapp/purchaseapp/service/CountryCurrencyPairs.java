@@ -0,0 +1,35 @@
+package com.wexapp.purchaseapp.service;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe set of (country, country_currency_desc) pairs
+ * Looked up with the two strings directly, so checking a pair allocates nothing
+ */
+final class CountryCurrencyPairs {
+
+    private final ConcurrentMap<String, Set<String>> countriesByCurrency = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    boolean add(String country, String currencyDesc) {
+        boolean added = countriesByCurrency
+                .computeIfAbsent(currencyDesc, key -> ConcurrentHashMap.newKeySet())
+                .add(country);
+        if (added) {
+            size.incrementAndGet();
+        }
+        return added;
+    }
+
+    boolean contains(String country, String currencyDesc) {
+        Set<String> countries = countriesByCurrency.get(currencyDesc);
+        return countries != null && countries.contains(country);
+    }
+
+    int size() {
+        return size.get();
+    }
+}
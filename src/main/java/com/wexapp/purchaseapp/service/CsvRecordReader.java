@@ -0,0 +1,134 @@
+package com.wexapp.purchaseapp.service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Incremental RFC 4180 reader: one record at a time from a character stream
+ * Handles quoted fields, doubled quotes and CRLF / LF line ends. A record longer than the limit is
+ * still read to its end, but its content is dropped, so one bad line cannot use unbounded memory
+ */
+final class CsvRecordReader {
+
+    private final Reader reader;
+    private final int maxRecordLength;
+    private final char[] buffer = new char[8192];
+    private int position;
+    private int limit;
+    private boolean started;
+    private boolean endOfInput;
+    private boolean lastRecordTooLong;
+
+    CsvRecordReader(Reader reader, int maxRecordLength) {
+        this.reader = reader;
+        this.maxRecordLength = maxRecordLength;
+    }
+
+    /**
+     * Fields of the next record, or null at the end of the input
+     */
+    List<String> next() throws IOException {
+        if (endOfInput) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        int length = 0;
+        boolean quoted = false;
+        boolean read = false;
+        lastRecordTooLong = false;
+        while (true) {
+            int c = read();
+            if (c == -1) {
+                endOfInput = true;
+                if (!read) {
+                    return null;
+                }
+                break;
+            }
+            read = true;
+            if (quoted) {
+                if (c != '"') {
+                    length = append(field, c, length);
+                } else if (peek() == '"') {
+                    read();
+                    length = append(field, '"', length);
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                if (!lastRecordTooLong) {
+                    fields.add(field.toString());
+                }
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c == '\r') {
+                if (peek() == '\n') {
+                    read();
+                }
+                break;
+            } else {
+                length = append(field, c, length);
+            }
+        }
+        if (lastRecordTooLong) {
+            return List.of();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * Whether the record last returned by {@link #next()} exceeded the length limit (and came back empty)
+     */
+    boolean lastRecordTooLong() {
+        return lastRecordTooLong;
+    }
+
+    private int append(StringBuilder field, int c, int length) {
+        if (length >= maxRecordLength) {
+            lastRecordTooLong = true;
+            field.setLength(0);
+            return length;
+        }
+        if (!lastRecordTooLong) {
+            field.append((char) c);
+        }
+        return length + 1;
+    }
+
+    private int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private int peek() throws IOException {
+        return fill() ? buffer[position] : -1;
+    }
+
+    private boolean fill() throws IOException {
+        while (position == limit) {
+            limit = reader.read(buffer, 0, buffer.length);
+            position = 0;
+            if (limit == -1) {
+                limit = 0;
+                return false;
+            }
+            // Excel and friends start UTF-8 files with a byte order mark
+            if (!started && limit > 0) {
+                started = true;
+                if (buffer[0] == '\uFEFF') {
+                    position = 1;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,336 @@
+package com.wexapp.purchaseapp.service;
+
+import com.wexapp.purchaseapp.dto.CountryCurrencyDTO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Country/currency catalog built from the Treasury API
+ * Readers always get the current immutable snapshot without blocking. The snapshot starts as the
+ * popular currencies, is replaced atomically once the first full load completes, and is refreshed
+ * in the background after the refresh TTL (stale-while-revalidate)
+ */
+@Component
+public class CurrencyCatalog implements DisposableBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(CurrencyCatalog.class);
+
+    // Wait before retrying after a failed or partial load
+    private static final Duration RETRY_DELAY = Duration.ofMinutes(1);
+
+    // Stop after 5 consecutive pages with no new currencies
+    private static final int MAX_CONSECUTIVE_EMPTY_PAGES = 5;
+
+    // Absolute maximum to avoid runaway loads
+    private static final int MAX_PAGES = 500;
+
+    @Autowired
+    private TreasuryClient treasuryClient;
+
+    @Value("${currency.catalog.refresh-ttl-minutes:360}")
+    private long refreshTtlMinutes;
+
+    @Value("${currency.api.catalog.page-size:100}")
+    private int catalogPageSize;
+
+    @Value("${currency.api.catalog.concurrency:4}")
+    private int catalogConcurrency;
+
+    private final AtomicReference<Map<String, CountryCurrencyDTO>> snapshot;
+    private final AtomicBoolean refreshing = new AtomicBoolean(false);
+    private final CompletableFuture<Boolean> initialLoad = new CompletableFuture<>();
+    private volatile Instant nextRefreshAt = Instant.MIN;
+
+    private final ExecutorService refreshExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "currency-catalog-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CurrencyCatalog() {
+        Map<String, CountryCurrencyDTO> seed = new HashMap<>();
+        addPopularCurrencies(seed, new CountryCurrencyPairs());
+        this.snapshot = new AtomicReference<>(Collections.unmodifiableMap(seed));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refreshAsync();
+    }
+
+    /**
+     * Get the current country currency map snapshot
+     * Starts a background refresh when the snapshot is older than the refresh TTL
+     */
+    public Map<String, CountryCurrencyDTO> getCountryCurrencyMap() {
+        if (Instant.now().isAfter(nextRefreshAt)) {
+            refreshAsync();
+        }
+        return snapshot.get();
+    }
+
+    /**
+     * Wait until the first full load from Treasury has finished (successfully or not)
+     *
+     * @return true if the catalog was fully loaded within the timeout
+     */
+    public boolean awaitInitialLoad(Duration timeout) {
+        refreshAsync();
+        try {
+            return initialLoad.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            return false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * Start a background load unless one is already running
+     */
+    public void refreshAsync() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(this::refresh);
+        } catch (RuntimeException e) {
+            refreshing.set(false);
+            logger.warn("Could not schedule currency catalog refresh: {}", e.getMessage());
+        }
+    }
+
+    private void refresh() {
+        boolean complete = false;
+        try {
+            CatalogLoad load = fetchCountryCurrencyMapFromApi();
+            complete = load.complete();
+            // Never replace a full catalog with a partial one
+            if (complete || snapshot.get().size() < load.map().size()) {
+                snapshot.set(Collections.unmodifiableMap(load.map()));
+            }
+        } catch (Exception e) {
+            logger.error("Error refreshing currency catalog", e);
+        } finally {
+            nextRefreshAt = Instant.now().plus(complete ? Duration.ofMinutes(refreshTtlMinutes) : RETRY_DELAY);
+            refreshing.set(false);
+            initialLoad.complete(complete);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+
+    /**
+     * Get list of 20 popular currencies that should always be available
+     * These are added first before fetching from Treasury API
+     * Format matches Treasury API country_currency_desc format (e.g., "Canada-Dollar", "UK-Pound")
+     */
+    public List<CountryCurrencyDTO> getPopularCurrencies() {
+        List<CountryCurrencyDTO> popularCurrencies = new ArrayList<>();
+        
+        // Popular currencies in country_currency_desc format (as returned by Treasury API)
+        // 1. North America
+        popularCurrencies.add(createCurrencyDTO("United States", "United States-Dollar"));
+        popularCurrencies.add(createCurrencyDTO("Canada", "Canada-Dollar"));
+        popularCurrencies.add(createCurrencyDTO("Mexico", "Mexico-Peso"));
+        
+        // 2. Europe (Eurozone and UK)
+        popularCurrencies.add(createCurrencyDTO("United Kingdom", "United Kingdom-Pound"));
+        popularCurrencies.add(createCurrencyDTO("Germany", "Euro Zone-Euro"));
+        popularCurrencies.add(createCurrencyDTO("France", "Euro Zone-Euro"));
+        popularCurrencies.add(createCurrencyDTO("Italy", "Euro Zone-Euro"));
+        popularCurrencies.add(createCurrencyDTO("Spain", "Euro Zone-Euro"));
+        popularCurrencies.add(createCurrencyDTO("Netherlands", "Euro Zone-Euro"));
+        popularCurrencies.add(createCurrencyDTO("Switzerland", "Switzerland-Franc"));
+        
+        // 3. Asia-Pacific
+        popularCurrencies.add(createCurrencyDTO("Japan", "Japan-Yen"));
+        popularCurrencies.add(createCurrencyDTO("China", "China-Yuan"));
+        popularCurrencies.add(createCurrencyDTO("India", "India-Rupee"));
+        popularCurrencies.add(createCurrencyDTO("South Korea", "South-Korea-Won"));
+        popularCurrencies.add(createCurrencyDTO("Singapore", "Singapore-Dollar"));
+        popularCurrencies.add(createCurrencyDTO("Hong Kong", "Hong-Kong-Dollar"));
+        popularCurrencies.add(createCurrencyDTO("Australia", "Australia-Dollar"));
+        popularCurrencies.add(createCurrencyDTO("New Zealand", "New-Zealand-Dollar"));
+        
+        // 4. South America
+        popularCurrencies.add(createCurrencyDTO("Brazil", "Brazil-Real"));
+        popularCurrencies.add(createCurrencyDTO("Argentina", "Argentina-Peso"));
+        popularCurrencies.add(createCurrencyDTO("Chile", "Chile-Peso"));
+        popularCurrencies.add(createCurrencyDTO("Colombia", "Colombia-Peso"));
+        
+        // 5. Other regions
+        popularCurrencies.add(createCurrencyDTO("South Africa", "South-Africa-Rand"));
+        
+        return popularCurrencies;
+    }
+    
+    /**
+     * Helper method to create a CountryCurrencyDTO
+     */
+    private CountryCurrencyDTO createCurrencyDTO(String country, String currencyDesc) {
+        CountryCurrencyDTO dto = new CountryCurrencyDTO();
+        dto.setCountry(country);
+        dto.setCurrencyCode(currencyDesc);
+        dto.setCurrencyName(currencyDesc);
+        return dto;
+    }
+
+    /**
+     * Add the popular currencies to a map under construction
+     */
+    private void addPopularCurrencies(Map<String, CountryCurrencyDTO> map, CountryCurrencyPairs seenCurrencies) {
+        for (CountryCurrencyDTO dto : getPopularCurrencies()) {
+            if (seenCurrencies.add(dto.getCountry(), dto.getCurrencyCode())) {
+                map.put(dto.getCountry(), dto);
+                map.put(dto.getCurrencyCode(), dto);
+            }
+        }
+    }
+
+    /**
+     * Fetch available countries and currencies from Treasury API
+     * Uses country_currency_desc as the currency code
+     * Page 1 gives meta.total-pages; the remaining pages are downloaded with bounded concurrency
+     * and merged in page order, stopping once several consecutive pages add no new currencies
+     * Runs on the refresh thread only; readers keep using the current snapshot meanwhile
+     */
+    private CatalogLoad fetchCountryCurrencyMapFromApi() {
+        // Initialize map and set outside try block so they're accessible in catch
+        Map<String, CountryCurrencyDTO> map = new HashMap<>();
+        // Shared with the page decoders, which skip pairs already merged without allocating them
+        CountryCurrencyPairs seenCurrencies = new CountryCurrencyPairs();
+
+        // Add popular currencies first (these are always available)
+        addPopularCurrencies(map, seenCurrencies);
+        logger.info("Added {} popular currencies to map", seenCurrencies.size());
+
+        // Note: Treasury API returns many records (same country-currency with different dates)
+        // We fetch pages until we get several consecutive pages with no new currencies
+        int[] consecutiveEmptyPages = {0};
+
+        try {
+            logger.debug("Fetching currencies from Treasury API (page size: {}, concurrency: {})",
+                catalogPageSize, catalogConcurrency);
+
+            TreasuryClient.CurrencyPage firstPage = treasuryClient.currencyPage(1, catalogPageSize, seenCurrencies).block();
+            int totalPages = firstPage.totalPages() != null ? firstPage.totalPages() : 1;
+            logger.info("Treasury API pagination: total pages: {}, total count: {}",
+                totalPages, firstPage.totalCount());
+            boolean keepGoing = mergePage(1, firstPage, map, seenCurrencies, consecutiveEmptyPages);
+
+            int lastPage = Math.min(totalPages, MAX_PAGES);
+            if (keepGoing && lastPage > 1) {
+                // flatMapSequential keeps up to `concurrency` requests in flight but emits pages in
+                // order, so the early-stop rule sees the same sequence as a one-by-one walk;
+                // stopping cancels the requests still running
+                Flux.range(2, lastPage - 1)
+                        .flatMapSequential(pageNumber -> treasuryClient.currencyPage(pageNumber, catalogPageSize, seenCurrencies)
+                                .map(page -> new NumberedPage(pageNumber, page)),
+                            Math.max(1, catalogConcurrency), 1)
+                        .takeWhile(numbered -> mergePage(numbered.pageNumber(), numbered.page(),
+                            map, seenCurrencies, consecutiveEmptyPages))
+                        .blockLast();
+            }
+
+            logger.info("Total unique currencies loaded: {} (map size: {})", seenCurrencies.size(), map.size());
+            if (consecutiveEmptyPages[0] >= MAX_CONSECUTIVE_EMPTY_PAGES) {
+                logger.info("Stopped fetching after {} consecutive pages with no new currencies",
+                    consecutiveEmptyPages[0]);
+            }
+            return new CatalogLoad(map, true);
+        } catch (Exception e) {
+            logger.error("Error fetching currencies from Treasury API", e);
+        }
+
+        // Partial map: popular currencies plus whatever pages were loaded
+        int uniqueCurrencyCount = seenCurrencies.size();
+        logger.info("Total unique currencies loaded: {} (map size: {})", uniqueCurrencyCount, map.size());
+        return new CatalogLoad(map, false);
+    }
+
+    /**
+     * Merge one page of currency records into the map under construction
+     *
+     * @return false once enough consecutive pages brought no new currencies to stop fetching
+     */
+    private boolean mergePage(int pageNumber, TreasuryClient.CurrencyPage page, Map<String, CountryCurrencyDTO> map,
+                              CountryCurrencyPairs seenCurrencies, int[] consecutiveEmptyPages) {
+        if (page.rows() == 0) {
+            logger.warn("Treasury API returned null or empty data for page {}", pageNumber);
+            consecutiveEmptyPages[0]++;
+            return consecutiveEmptyPages[0] < MAX_CONSECUTIVE_EMPTY_PAGES;
+        }
+
+        int beforeCount = seenCurrencies.size();
+
+        // Process each currency entry
+        for (TreasuryClient.CountryCurrency currencyData : page.entries()) {
+            String country = currencyData.country();
+            String currencyDesc = currencyData.currencyDesc();
+
+            if (country != null && currencyDesc != null) {
+                // Pages are pre-filtered while decoding, but a concurrently decoded page may
+                // still repeat a pair merged in the meantime
+                if (seenCurrencies.add(country, currencyDesc)) {
+                    CountryCurrencyDTO dto = new CountryCurrencyDTO();
+                    dto.setCountry(country);
+                    dto.setCurrencyCode(currencyDesc);
+                    dto.setCurrencyName(currencyDesc);
+
+                    // Store by country name
+                    map.put(country, dto);
+
+                    // Also store by currency description for easy lookup
+                    map.put(currencyDesc, dto);
+                }
+            }
+        }
+
+        int afterCount = seenCurrencies.size();
+        int newCurrencies = afterCount - beforeCount;
+
+        if (newCurrencies > 0) {
+            logger.info("Page {}: Added {} new unique currencies (total: {})",
+                pageNumber, newCurrencies, afterCount);
+            consecutiveEmptyPages[0] = 0; // Reset counter
+        } else {
+            consecutiveEmptyPages[0]++;
+            if (consecutiveEmptyPages[0] == 1) {
+                logger.info("Page {}: No new currencies found (total: {})",
+                    pageNumber, afterCount);
+            }
+        }
+        return consecutiveEmptyPages[0] < MAX_CONSECUTIVE_EMPTY_PAGES;
+    }
+
+    private record NumberedPage(int pageNumber, TreasuryClient.CurrencyPage page) {
+    }
+
+    private record CatalogLoad(Map<String, CountryCurrencyDTO> map, boolean complete) {
+    }
+}
@@ -2,18 +2,18 @@ package com.wexapp.purchaseapp.service;
 
 import com.wexapp.purchaseapp.dto.CountryCurrencyDTO;
 import com.wexapp.purchaseapp.exception.ExchangeRateNotFoundException;
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
-import com.fasterxml.jackson.annotation.JsonProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.WebClientResponseException;
-import org.springframework.web.util.UriComponentsBuilder;
 
 import java.math.BigDecimal;
+import java.math.MathContext;
 import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
@@ -23,231 +23,50 @@ public class CurrencyService {
     
     private static final Logger logger = LoggerFactory.getLogger(CurrencyService.class);
 
-    @Value("${currency.api.url}")
-    private String currencyApiUrl;
-    
-    private final WebClient webClient;
+    private final TreasuryClient treasuryClient;
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
     
-    // Cache for country currency map (fetched from Treasury API)
-    private Map<String, CountryCurrencyDTO> countryCurrencyMapCache = null;
-    private final Object cacheLock = new Object();
+    // Country/currency catalog (fetched from Treasury API in the background)
+    private final CurrencyCatalog currencyCatalog;
 
-    public CurrencyService() {
-        // Don't set baseUrl - we'll construct full URLs to avoid URI parsing issues
-        this.webClient = WebClient.builder().build();
-    }
+    // Rate history per currency, filled from Treasury as windows are requested
+    private final ExchangeRateIndex rateIndex;
 
-    /**
-     * Get list of 20 popular currencies that should always be available
-     * These are added first before fetching from Treasury API
-     * Format matches Treasury API country_currency_desc format (e.g., "Canada-Dollar", "UK-Pound")
-     */
-    private List<CountryCurrencyDTO> getPopularCurrencies() {
-        List<CountryCurrencyDTO> popularCurrencies = new ArrayList<>();
-        
-        // Popular currencies in country_currency_desc format (as returned by Treasury API)
-        // 1. North America
-        popularCurrencies.add(createCurrencyDTO("United States", "United States-Dollar"));
-        popularCurrencies.add(createCurrencyDTO("Canada", "Canada-Dollar"));
-        popularCurrencies.add(createCurrencyDTO("Mexico", "Mexico-Peso"));
-        
-        // 2. Europe (Eurozone and UK)
-        popularCurrencies.add(createCurrencyDTO("United Kingdom", "United Kingdom-Pound"));
-        popularCurrencies.add(createCurrencyDTO("Germany", "Euro Zone-Euro"));
-        popularCurrencies.add(createCurrencyDTO("France", "Euro Zone-Euro"));
-        popularCurrencies.add(createCurrencyDTO("Italy", "Euro Zone-Euro"));
-        popularCurrencies.add(createCurrencyDTO("Spain", "Euro Zone-Euro"));
-        popularCurrencies.add(createCurrencyDTO("Netherlands", "Euro Zone-Euro"));
-        popularCurrencies.add(createCurrencyDTO("Switzerland", "Switzerland-Franc"));
-        
-        // 3. Asia-Pacific
-        popularCurrencies.add(createCurrencyDTO("Japan", "Japan-Yen"));
-        popularCurrencies.add(createCurrencyDTO("China", "China-Yuan"));
-        popularCurrencies.add(createCurrencyDTO("India", "India-Rupee"));
-        popularCurrencies.add(createCurrencyDTO("South Korea", "South-Korea-Won"));
-        popularCurrencies.add(createCurrencyDTO("Singapore", "Singapore-Dollar"));
-        popularCurrencies.add(createCurrencyDTO("Hong Kong", "Hong-Kong-Dollar"));
-        popularCurrencies.add(createCurrencyDTO("Australia", "Australia-Dollar"));
-        popularCurrencies.add(createCurrencyDTO("New Zealand", "New-Zealand-Dollar"));
-        
-        // 4. South America
-        popularCurrencies.add(createCurrencyDTO("Brazil", "Brazil-Real"));
-        popularCurrencies.add(createCurrencyDTO("Argentina", "Argentina-Peso"));
-        popularCurrencies.add(createCurrencyDTO("Chile", "Chile-Peso"));
-        popularCurrencies.add(createCurrencyDTO("Colombia", "Colombia-Peso"));
-        
-        // 5. Other regions
-        popularCurrencies.add(createCurrencyDTO("South Africa", "South-Africa-Rand"));
-        
-        return popularCurrencies;
-    }
-    
-    /**
-     * Helper method to create a CountryCurrencyDTO
-     */
-    private CountryCurrencyDTO createCurrencyDTO(String country, String currencyDesc) {
-        CountryCurrencyDTO dto = new CountryCurrencyDTO();
-        dto.setCountry(country);
-        dto.setCurrencyCode(currencyDesc);
-        dto.setCurrencyName(currencyDesc);
-        return dto;
-    }
+    // Treasury rate queries currently running, so concurrent callers share one request
+    private final InFlightRequests<RateWindowKey, Integer> inFlightRateFetches = new InFlightRequests<>();
 
-    /**
-     * Fetch available countries and currencies from Treasury API
-     * Uses country_currency_desc as the currency code
-     * Caches the result for performance
-     */
-    private Map<String, CountryCurrencyDTO> fetchCountryCurrencyMapFromApi() {
-        synchronized (cacheLock) {
-            if (countryCurrencyMapCache != null) {
-                return countryCurrencyMapCache;
-            }
+    // Windows known to have no rate, with their expiry; answered without any I/O until then
+    private static final int MAX_CACHED_MISSES = 10_000;
+    private final MissCache<RateWindowKey> cachedMisses;
 
-            // Initialize map and set outside try block so they're accessible in catch
-            Map<String, CountryCurrencyDTO> map = new HashMap<>();
-            Set<String> seenCurrencies = new HashSet<>();
-            
-            // Add popular currencies first (these are always available)
-            logger.info("Adding {} popular currencies", getPopularCurrencies().size());
-            for (CountryCurrencyDTO dto : getPopularCurrencies()) {
-                String uniqueKey = dto.getCountry() + "|" + dto.getCurrencyCode();
-                if (!seenCurrencies.contains(uniqueKey)) {
-                    seenCurrencies.add(uniqueKey);
-                    map.put(dto.getCountry(), dto);
-                    map.put(dto.getCurrencyCode(), dto);
-                }
-            }
-            logger.info("Added {} popular currencies to map", seenCurrencies.size());
+    // Tells the materialized conversions when Treasury records not seen before are loaded
+    private final ApplicationEventPublisher eventPublisher;
 
-            try {
-                // Build URL to fetch all available currencies
-                logger.debug("Fetching currencies from Treasury API");
-                logger.debug("Base URL: {}", currencyApiUrl);
-                
-                // Fetch pages until we stop getting new unique currencies
-                // Note: Treasury API returns many records (same country-currency with different dates)
-                // We fetch pages until we get several consecutive pages with no new currencies
-                int pageNumber = 1;
-                int totalPages = 1;
-                int consecutiveEmptyPages = 0;
-                int maxConsecutiveEmptyPages = 5; // Stop after 5 consecutive pages with no new currencies
-                int maxPages = 500; // Absolute maximum to avoid infinite loops
-                
-                while (pageNumber <= maxPages && consecutiveEmptyPages < maxConsecutiveEmptyPages) {
-                    String pageUrl = UriComponentsBuilder.fromHttpUrl(currencyApiUrl)
-                            .queryParam("sort", "-record_date")
-                            .queryParam("format", "json")
-                            .queryParam("page[number]", String.valueOf(pageNumber))
-                            .queryParam("page[size]", "100")  // Treasury API default page size
-                            .queryParam("fields", "country,country_currency_desc,record_date")
-                            .toUriString();
-                    
-                    logger.debug("Fetching page {}: {}", pageNumber, pageUrl);
-                    
-                    TreasuryCurrencyListResponse response = webClient.get()
-                            .uri(pageUrl)
-                            .retrieve()
-                            .bodyToMono(TreasuryCurrencyListResponse.class)
-                            .block();
-                    
-                    if (response != null && response.getMeta() != null) {
-                        totalPages = response.getMeta().getTotalPages() != null ? 
-                            response.getMeta().getTotalPages() : 1;
-                        if (pageNumber == 1) {
-                            logger.info("Treasury API pagination: total pages: {}, total count: {}", 
-                                totalPages, response.getMeta().getTotalCount());
-                        }
-                    }
-                    
-                    if (response != null && response.getData() != null && !response.getData().isEmpty()) {
-                        int beforeCount = seenCurrencies.size();
-                        
-                        // Process each currency entry
-                        for (TreasuryCurrencyData currencyData : response.getData()) {
-                            String country = currencyData.getCountry();
-                            String currencyDesc = currencyData.getCountryCurrencyDesc();
-                            
-                            if (country != null && currencyDesc != null) {
-                                // Create unique key to avoid duplicates
-                                String uniqueKey = country + "|" + currencyDesc;
-                                
-                                if (!seenCurrencies.contains(uniqueKey)) {
-                                    seenCurrencies.add(uniqueKey);
-                                    
-                                    CountryCurrencyDTO dto = new CountryCurrencyDTO();
-                                    dto.setCountry(country);
-                                    dto.setCurrencyCode(currencyDesc);
-                                    dto.setCurrencyName(currencyDesc);
-                                    
-                                    // Store by country name
-                                    map.put(country, dto);
-                                    
-                                    // Also store by currency description for easy lookup
-                                    map.put(currencyDesc, dto);
-                                }
-                            }
-                        }
-                        
-                        int afterCount = seenCurrencies.size();
-                        int newCurrencies = afterCount - beforeCount;
-                        
-                        if (newCurrencies > 0) {
-                            logger.info("Page {}: Added {} new unique currencies (total: {})", 
-                                pageNumber, newCurrencies, afterCount);
-                            consecutiveEmptyPages = 0; // Reset counter
-                        } else {
-                            consecutiveEmptyPages++;
-                            if (consecutiveEmptyPages == 1) {
-                                logger.info("Page {}: No new currencies found (total: {})", 
-                                    pageNumber, afterCount);
-                            }
-                        }
-                    } else {
-                        logger.warn("Treasury API returned null or empty data for page {}", pageNumber);
-                        consecutiveEmptyPages++;
-                        if (consecutiveEmptyPages >= maxConsecutiveEmptyPages) {
-                            break;
-                        }
-                    }
-                    
-                    // Check if there are more pages
-                    if (pageNumber >= totalPages) {
-                        break;
-                    }
-                    
-                    pageNumber++;
-                }
-                
-                int uniqueCurrencyCount = seenCurrencies.size();
-                logger.info("Total unique currencies loaded: {} (map size: {})", uniqueCurrencyCount, map.size());
-                
-                if (consecutiveEmptyPages >= maxConsecutiveEmptyPages) {
-                    logger.info("Stopped fetching after {} consecutive pages with no new currencies", 
-                        consecutiveEmptyPages);
-                }
-                
-                countryCurrencyMapCache = map;
-                return map;
-            } catch (Exception e) {
-                logger.error("Error fetching currencies from Treasury API", e);
-            }
-            
-            // Return map with at least USD (always present)
-            int uniqueCurrencyCount = seenCurrencies.size();
-            logger.info("Total unique currencies loaded: {} (map size: {})", uniqueCurrencyCount, map.size());
-            countryCurrencyMapCache = map;
-            return map;
-        }
+    @Autowired
+    public CurrencyService(TreasuryClient treasuryClient, CurrencyCatalog currencyCatalog,
+                           ApplicationEventPublisher eventPublisher,
+                           @Value("${currency.rates.recent-ttl-minutes:60}") long recentTtlMinutes,
+                           @Value("${currency.rates.miss-ttl-minutes:15}") long missTtlMinutes) {
+        this(treasuryClient, currencyCatalog, eventPublisher, recentTtlMinutes,
+            new MissCache<>(Duration.ofMinutes(missTtlMinutes), MAX_CACHED_MISSES));
+    }
+
+    CurrencyService(TreasuryClient treasuryClient, CurrencyCatalog currencyCatalog,
+                    ApplicationEventPublisher eventPublisher, long recentTtlMinutes,
+                    MissCache<RateWindowKey> cachedMisses) {
+        this.treasuryClient = treasuryClient;
+        this.currencyCatalog = currencyCatalog;
+        this.eventPublisher = eventPublisher;
+        this.rateIndex = new ExchangeRateIndex(Duration.ofMinutes(recentTtlMinutes));
+        this.cachedMisses = cachedMisses;
     }
 
     /**
-     * Get country currency map - fetches from Treasury API if not cached
-     * Only returns currencies available in the Treasury API
+     * Get country currency map - served from the catalog snapshot, never blocks on Treasury
+     * Contains the popular currencies until the first full load from Treasury completes
      */
     public Map<String, CountryCurrencyDTO> getCountryCurrencyMap() {
-        return fetchCountryCurrencyMapFromApi();
+        return currencyCatalog.getCountryCurrencyMap();
     }
 
     /**
@@ -261,67 +80,57 @@ public class CurrencyService {
      * @throws ExchangeRateNotFoundException if no exchange rate found
      */
     public BigDecimal getExchangeRate(String currencyCode, LocalDate purchaseDate) {
+        return resolveExchangeRate(currencyCode, purchaseDate).rate();
+    }
+
+    /**
+     * Same lookup as {@link #getExchangeRate}, also telling whether the rate is stale
+     * A rate is stale when Treasury could not be reached (error, timeout or open circuit)
+     * and the last known rate for the window was used instead
+     */
+    public ResolvedRate resolveExchangeRate(String currencyCode, LocalDate purchaseDate) {
+        currencyCode = currencyCode.trim();
         // USD is always 1.0
         if ("USD".equalsIgnoreCase(currencyCode) || "United States-Dollar".equalsIgnoreCase(currencyCode)) {
-            return BigDecimal.ONE;
+            return ResolvedRate.usd(purchaseDate);
         }
 
         // Calculate date range: 6 months before purchase date to purchase date
         LocalDate sixMonthsBefore = purchaseDate.minusMonths(6);
-        String startDate = sixMonthsBefore.format(DATE_FORMATTER);
-        String endDate = purchaseDate.format(DATE_FORMATTER);
+        RateWindowKey window = new RateWindowKey(currencyCode, sixMonthsBefore, purchaseDate);
+        if (isCachedMiss(window)) {
+            logger.debug("Cached miss for {} between {} and {}", currencyCode, sixMonthsBefore, purchaseDate);
+            throw rateNotFound(currencyCode, purchaseDate);
+        }
 
         try {
-            // Build API query: filter by currency description and date range, sort descending by date
-            // Format: country_currency_desc:in:(Canada-Dollar),record_date:gte:2025-01-01,record_date:lte=2025-12-03&sort=-record_date
-            String filter = String.format("country_currency_desc:in:(%s),record_date:gte:%s,record_date:lte=%s", 
-                currencyCode, startDate, endDate);
-            
-            // Log the API call for debugging
-            logger.debug("Fetching exchange rate for currency: {}", currencyCode);
-            logger.debug("Date range: {} to {}", startDate, endDate);
-            logger.debug("Base URL: {}", currencyApiUrl);
-            logger.debug("Filter: {}", filter);
-            
-            // Build the full URI with query parameters
-            String fullUrl = UriComponentsBuilder.fromHttpUrl(currencyApiUrl)
-                    .queryParam("fields", "country_currency_desc,exchange_rate,record_date")
-                    .queryParam("filter", filter)
-                    .queryParam("sort", "-record_date")
-                    .queryParam("page[size]", "1")
-                    .toUriString();
-            
-            logger.debug("Full URL: {}", fullUrl);
-            
-            TreasuryApiResponse response = webClient.get()
-                    .uri(fullUrl)
-                    .retrieve()
-                    .bodyToMono(TreasuryApiResponse.class)
-                    .block();
-
-            logger.debug("Treasury API response: {}", response != null ? "received" : "null");
-            if (response != null && response.getData() != null) {
-                logger.debug("Response data size: {}", response.getData().size());
+            // Only go to Treasury for the parts of the window not loaded yet;
+            // the lookup itself is a floor search in the in-memory index
+            boolean stale = false;
+            try {
+                ensureRatesLoaded(currencyCode, sixMonthsBefore, purchaseDate);
+            } catch (RuntimeException e) {
+                // Treasury unreachable: keep converting with the rates already loaded for the window
+                if (rateIndex.floor(currencyCode, purchaseDate, sixMonthsBefore).isEmpty()) {
+                    throw e;
+                }
+                logger.warn("Could not refresh rates for {} ({}); using last known rate", currencyCode, e.getMessage());
+                stale = true;
             }
 
-            if (response != null && response.getData() != null && !response.getData().isEmpty()) {
-                TreasuryRateData rateData = response.getData().get(0);
-                String exchangeRateStr = rateData.getExchangeRate();
-                if (exchangeRateStr != null && !exchangeRateStr.isEmpty()) {
-                    logger.debug("Exchange rate found: {}", exchangeRateStr);
-                    return new BigDecimal(exchangeRateStr);
-                } else {
-                    logger.debug("Exchange rate string is null or empty");
-                }
-            } else {
-                logger.debug("No exchange rate data found in response");
+            Optional<ExchangeRateIndex.RateEntry> rateEntry =
+                    rateIndex.floor(currencyCode, purchaseDate, sixMonthsBefore);
+            if (rateEntry.isPresent()) {
+                logger.debug("Exchange rate found: {} (record date {})",
+                    rateEntry.get().rate(), rateEntry.get().recordDate());
+                return ResolvedRate.of(rateEntry.get(), stale);
             }
+            logger.debug("No exchange rate data found for {} between {} and {}",
+                currencyCode, sixMonthsBefore, purchaseDate);
             
-            // No exchange rate found
-            throw new ExchangeRateNotFoundException(
-                String.format("Exchange rate not found for currency %s on or before %s (within last 6 months). Purchase cannot be converted to target currency.", 
-                    currencyCode, purchaseDate.format(DATE_FORMATTER))
-            );
+            // No exchange rate found; remember it so repeats skip the lookup
+            cacheMiss(window);
+            throw rateNotFound(currencyCode, purchaseDate);
             
         } catch (WebClientResponseException e) {
             logger.error("WebClientResponseException when fetching exchange rate for currency: {}", currencyCode, e);
@@ -342,6 +151,57 @@ public class CurrencyService {
         }
     }
 
+    /**
+     * Make sure the rate index holds every Treasury record for a currency in [from, to]
+     * Fetches only the ranges that have not been loaded before
+     */
+    private void ensureRatesLoaded(String currencyCode, LocalDate from, LocalDate to) {
+        for (ExchangeRateIndex.DateRange range : rateIndex.missingRanges(currencyCode, from, to)) {
+            // Identical windows requested concurrently (e.g. a cold cache under load) share one Treasury call
+            RateWindowKey key = new RateWindowKey(currencyCode, range.from(), range.to());
+            inFlightRateFetches.execute(key, () -> {
+                Map<LocalDate, BigDecimal> rates = new HashMap<>();
+                LocalDate earliestNew = null;
+                LocalDate latestNew = null;
+                for (TreasuryClient.TreasuryRate rate : treasuryClient.fetchRateHistory(currencyCode, range.from(), range.to())) {
+                    // Sorted newest first, so keep the first record seen for a date
+                    if (rates.putIfAbsent(rate.recordDate(), rate.exchangeRate()) == null
+                            && rateIndex.floor(currencyCode, rate.recordDate(), rate.recordDate()).isEmpty()) {
+                        earliestNew = earliestNew == null || rate.recordDate().isBefore(earliestNew) ? rate.recordDate() : earliestNew;
+                        latestNew = latestNew == null || rate.recordDate().isAfter(latestNew) ? rate.recordDate() : latestNew;
+                    }
+                }
+                rateIndex.load(currencyCode, range.from(), range.to(), rates);
+                if (earliestNew != null) {
+                    eventPublisher.publishEvent(new ExchangeRatesUpdatedEvent(currencyCode, earliestNew, latestNew));
+                }
+                logger.debug("Loaded {} rates for {} between {} and {} (index size: {})",
+                    rates.size(), currencyCode, range.from(), range.to(), rateIndex.size());
+                return rates.size();
+            });
+        }
+    }
+
+    /**
+     * Load a currency's rate history for [from, to] ahead of the first conversion that needs it
+     * Only ranges not already covered (stored rates, snapshot, earlier loads) go to Treasury
+     *
+     * @return true if the window is loaded, false if Treasury could not be reached
+     */
+    public boolean preloadRates(String currencyCode, LocalDate from, LocalDate to) {
+        String normalizedCurrency = currencyCode.trim();
+        if (isUsd(normalizedCurrency)) {
+            return true;
+        }
+        try {
+            ensureRatesLoaded(normalizedCurrency, from, to);
+            return true;
+        } catch (Exception e) {
+            logger.warn("Could not preload rates for {} between {} and {}: {}", normalizedCurrency, from, to, e.getMessage());
+            return false;
+        }
+    }
+
     /**
      * Convert USD amount to target currency based on purchase date
      * 
@@ -357,151 +217,274 @@ public class CurrencyService {
             return usdAmount;
         }
         String normalizedCurrency = targetCurrency.trim();
-        if ("USD".equalsIgnoreCase(normalizedCurrency) || 
-            "United States-Dollar".equalsIgnoreCase(normalizedCurrency) ||
-            "United States".equalsIgnoreCase(normalizedCurrency)) {
+        if (isUsd(normalizedCurrency)) {
             return usdAmount;
         }
 
         BigDecimal rate = getExchangeRate(normalizedCurrency, purchaseDate);
-        return usdAmount.multiply(rate).setScale(2, RoundingMode.HALF_UP);
+        return applyRate(usdAmount, rate);
     }
 
-    // Response classes for Treasury API currency list
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    private static class TreasuryCurrencyListResponse {
-        @JsonProperty("data")
-        private List<TreasuryCurrencyData> data;
-        
-        @JsonProperty("meta")
-        private TreasuryMeta meta;
-        
-        public List<TreasuryCurrencyData> getData() {
-            return data;
-        }
-        
-        public void setData(List<TreasuryCurrencyData> data) {
-            this.data = data;
-        }
-        
-        public TreasuryMeta getMeta() {
-            return meta;
-        }
-        
-        public void setMeta(TreasuryMeta meta) {
-            this.meta = meta;
-        }
+    /**
+     * Convert a USD amount with an already resolved exchange rate
+     * Rounds to 2 decimal places (HALF_UP), same as convertUSDToCurrency; computed in integer
+     * cents ({@link FixedPointRates}) with the same result as BigDecimal multiply/setScale
+     */
+    public BigDecimal applyRate(BigDecimal usdAmount, BigDecimal rate) {
+        return FixedPointRates.convert(usdAmount, rate);
     }
-    
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    private static class TreasuryMeta {
-        @JsonProperty("total-count")
-        private Integer totalCount;
-        
-        @JsonProperty("total-pages")
-        private Integer totalPages;
-        
-        public Integer getTotalCount() {
-            return totalCount;
-        }
-        
-        public void setTotalCount(Integer totalCount) {
-            this.totalCount = totalCount;
-        }
-        
-        public Integer getTotalPages() {
-            return totalPages;
-        }
-        
-        public void setTotalPages(Integer totalPages) {
-            this.totalPages = totalPages;
+
+    /**
+     * Convert an amount with a resolved (USD or cross) rate
+     */
+    public BigDecimal applyRate(BigDecimal amount, ConversionRate rate) {
+        return rate.convert(amount);
+    }
+
+    /**
+     * Convert an amount between any two Treasury currencies based on purchase date
+     * Goes through USD: both legs come from the rate index, so no Treasury query is made per pair
+     *
+     * @param amount Amount in the source currency
+     * @param sourceCurrency The country_currency_desc of the amount (e.g., "Canada-Dollar")
+     * @param targetCurrency The country_currency_desc to convert to (e.g., "Mexico-Peso")
+     * @param purchaseDate Date of the purchase
+     * @return Converted amount, rounded to 2 decimal places (HALF_UP)
+     * @throws ExchangeRateNotFoundException if either leg has no rate within 6 months
+     */
+    public BigDecimal convertCurrency(BigDecimal amount, String sourceCurrency, String targetCurrency, LocalDate purchaseDate) {
+        CrossRate rate = getCrossRates(sourceCurrency, targetCurrency, List.of(purchaseDate)).get(purchaseDate);
+        if (rate == null) {
+            throw new ExchangeRateNotFoundException(
+                String.format("Exchange rate not found for %s to %s on or before %s (within last 6 months). Purchase cannot be converted to target currency.",
+                    sourceCurrency, targetCurrency, purchaseDate.format(DATE_FORMATTER))
+            );
         }
+        return rate.convert(amount);
     }
 
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    private static class TreasuryCurrencyData {
-        @JsonProperty("country")
-        private String country;
-        
-        @JsonProperty("country_currency_desc")
-        private String countryCurrencyDesc;
-        
-        @JsonProperty("record_date")
-        private String recordDate;
-        
-        public String getCountry() {
-            return country;
+    /**
+     * Resolve cross rates (units of target per 1 unit of source) for many purchase dates at once
+     * Each USD leg is resolved with {@link #getExchangeRates}, so a request costs at most one
+     * rate-history load per currency
+     *
+     * @param sourceCurrency The country_currency_desc converted from; null means USD
+     * @param targetCurrency The country_currency_desc converted to; null means USD
+     * @param purchaseDates Purchase dates to resolve
+     * @return Cross rate per purchase date; dates where either leg has no rate are absent.
+     *         Rates are marked stale when either leg is stale
+     * @throws ExchangeRateNotFoundException if either rate history could not be fetched
+     */
+    public Map<LocalDate, CrossRate> getCrossRates(String sourceCurrency, String targetCurrency,
+                                                   Collection<LocalDate> purchaseDates) {
+        String source = sourceCurrency == null ? "USD" : sourceCurrency.trim();
+        String target = targetCurrency == null ? "USD" : targetCurrency.trim();
+        Map<LocalDate, ResolvedRate> sourceLegs = getExchangeRates(source, purchaseDates);
+        Map<LocalDate, ResolvedRate> targetLegs = source.equalsIgnoreCase(target)
+            ? sourceLegs
+            : getExchangeRates(target, sourceLegs.keySet());
+
+        Map<LocalDate, CrossRate> rates = new HashMap<>();
+        for (Map.Entry<LocalDate, ResolvedRate> sourceLeg : sourceLegs.entrySet()) {
+            ResolvedRate targetLeg = targetLegs.get(sourceLeg.getKey());
+            if (targetLeg == null || sourceLeg.getValue().rate().signum() == 0) {
+                continue;
+            }
+            BigDecimal rate = crossRate(sourceLeg.getValue().rate(), targetLeg.rate());
+            rates.put(sourceLeg.getKey(), new CrossRate(rate, sourceLeg.getValue(), targetLeg));
         }
-        
-        public void setCountry(String country) {
-            this.country = country;
+        logger.debug("Resolved {} of {} purchase dates for {} to {}", rates.size(), purchaseDates.size(), source, target);
+        return rates;
+    }
+
+    /**
+     * Units of target per 1 unit of source, from the two "per 1 USD" rates
+     * Kept to 16 significant digits; only shown to callers, amounts are converted from the legs
+     */
+    static BigDecimal crossRate(BigDecimal sourcePerUsd, BigDecimal targetPerUsd) {
+        BigDecimal rate = targetPerUsd.divide(sourcePerUsd, MathContext.DECIMAL64).stripTrailingZeros();
+        return rate.scale() < 0 ? rate.setScale(0) : rate;
+    }
+
+    /**
+     * Resolve exchange rates for many purchase dates of one target currency at once
+     * Loads the currency's rate history for [earliest date - 6 months, latest date] in a single
+     * paginated Treasury query (only the parts not already loaded), then answers every date from memory
+     * 
+     * @param targetCurrency The country_currency_desc (e.g., "Canada-Dollar")
+     * @param purchaseDates Purchase dates to resolve
+     * @return Exchange rate per purchase date; dates without a rate within their 6-month window are absent.
+     *         Rates are marked stale when Treasury could not be reached and stored rates were used
+     * @throws ExchangeRateNotFoundException if the rate history could not be fetched
+     */
+    public Map<LocalDate, ResolvedRate> getExchangeRates(String targetCurrency, Collection<LocalDate> purchaseDates) {
+        Map<LocalDate, ResolvedRate> rates = new HashMap<>();
+        if (purchaseDates.isEmpty()) {
+            return rates;
         }
-        
-        public String getCountryCurrencyDesc() {
-            return countryCurrencyDesc;
+        String normalizedCurrency = targetCurrency == null ? "USD" : targetCurrency.trim();
+        if (isUsd(normalizedCurrency)) {
+            purchaseDates.forEach(date -> rates.put(date, ResolvedRate.usd(date)));
+            return rates;
         }
-        
-        public void setCountryCurrencyDesc(String countryCurrencyDesc) {
-            this.countryCurrencyDesc = countryCurrencyDesc;
+
+        // Dates whose window is a cached miss are answered without loading anything
+        List<LocalDate> datesToResolve = new ArrayList<>();
+        for (LocalDate date : purchaseDates) {
+            if (!isCachedMiss(new RateWindowKey(normalizedCurrency, date.minusMonths(6), date))) {
+                datesToResolve.add(date);
+            }
         }
-        
-        public String getRecordDate() {
-            return recordDate;
+        if (datesToResolve.isEmpty()) {
+            return rates;
         }
-        
-        public void setRecordDate(String recordDate) {
-            this.recordDate = recordDate;
+
+        LocalDate earliest = Collections.min(datesToResolve);
+        LocalDate latest = Collections.max(datesToResolve);
+        Exception loadFailure = null;
+        try {
+            ensureRatesLoaded(normalizedCurrency, earliest.minusMonths(6), latest);
+        } catch (Exception e) {
+            // Still resolve what the stored rates can answer
+            logger.error("Exception loading exchange rates for currency: {}", normalizedCurrency, e);
+            loadFailure = e;
         }
-    }
 
-    // Response classes for Treasury API exchange rates
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    private static class TreasuryApiResponse {
-        @JsonProperty("data")
-        private List<TreasuryRateData> data;
-        
-        public List<TreasuryRateData> getData() {
-            return data;
+        // Rates are published per quarter, so many purchase dates share one record; resolve each record once
+        Map<LocalDate, ResolvedRate> byRecordDate = new HashMap<>();
+        boolean stale = loadFailure != null;
+        for (LocalDate date : datesToResolve) {
+            Optional<ExchangeRateIndex.RateEntry> entry = rateIndex.floor(normalizedCurrency, date, date.minusMonths(6));
+            if (entry.isPresent()) {
+                rates.put(date, byRecordDate.computeIfAbsent(entry.get().recordDate(),
+                    recordDate -> ResolvedRate.of(entry.get(), stale)));
+            } else if (loadFailure == null) {
+                cacheMiss(new RateWindowKey(normalizedCurrency, date.minusMonths(6), date));
+            }
         }
-        
-        public void setData(List<TreasuryRateData> data) {
-            this.data = data;
+        if (loadFailure != null && rates.isEmpty()) {
+            throw new ExchangeRateNotFoundException(
+                String.format("Error fetching exchange rates for currency %s: %s. Purchases cannot be converted to target currency.",
+                    normalizedCurrency, loadFailure.getMessage())
+            );
         }
+        logger.debug("Resolved {} of {} purchase dates for {}", rates.size(), purchaseDates.size(), normalizedCurrency);
+        return rates;
     }
 
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    private static class TreasuryRateData {
-        @JsonProperty("country_currency_desc")
-        private String countryCurrencyDesc;
-        
-        @JsonProperty("exchange_rate")
-        private String exchangeRate;
-        
-        @JsonProperty("record_date")
-        private String recordDate;
-        
-        public String getCountryCurrencyDesc() {
-            return countryCurrencyDesc;
-        }
-        
-        public void setCountryCurrencyDesc(String countryCurrencyDesc) {
-            this.countryCurrencyDesc = countryCurrencyDesc;
+    /**
+     * Load rates read from the persisted exchange_rates table (or just synced into it)
+     * Marks [from, to] as loaded for every currency so lookups inside it never call Treasury
+     */
+    public void loadStoredRates(Collection<TreasuryClient.TreasuryRate> rates, LocalDate from, LocalDate to) {
+        rateIndex.loadAll(rates, from, to);
+        logger.info("Loaded {} stored exchange rates covering {} to {} (index size: {})",
+            rates.size(), from, to, rateIndex.size());
+    }
+
+    /**
+     * Serve rates from a memory-mapped snapshot, without copying it onto the heap
+     * Marks the snapshot's range as loaded for every currency
+     */
+    public void attachSnapshot(RateSnapshot snapshot) {
+        rateIndex.attach(snapshot);
+        logger.info("Attached exchange rate snapshot: {} rates for {} currencies covering {} to {}",
+            snapshot.size(), snapshot.currencyCount(), snapshot.coveredFrom(), snapshot.coveredTo());
+    }
+
+    private ExchangeRateNotFoundException rateNotFound(String currencyCode, LocalDate purchaseDate) {
+        return new ExchangeRateNotFoundException(
+            String.format("Exchange rate not found for currency %s on or before %s (within last 6 months). Purchase cannot be converted to target currency.", 
+                currencyCode, purchaseDate.format(DATE_FORMATTER))
+        );
+    }
+
+    private boolean isCachedMiss(RateWindowKey window) {
+        return cachedMisses.contains(window);
+    }
+
+    /**
+     * Remember that a window has no rate, for the (shorter) miss TTL
+     * Only genuine "no data" answers are cached, never Treasury errors
+     */
+    private void cacheMiss(RateWindowKey window) {
+        cachedMisses.add(window);
+    }
+
+    /**
+     * An exchange rate with the Treasury record date it came from
+     * {@code stale} is set when Treasury could not be reached and the last known rate was used
+     */
+    public record ResolvedRate(BigDecimal rate, long scaledRate, LocalDate recordDate, boolean stale) implements ConversionRate {
+
+        static ResolvedRate of(ExchangeRateIndex.RateEntry entry, boolean stale) {
+            return new ResolvedRate(entry.rate(), entry.exactRate() == null ? entry.scaledRate() : FixedPointRates.NOT_FIXED,
+                entry.recordDate(), stale);
         }
-        
-        public String getExchangeRate() {
-            return exchangeRate;
+
+        static ResolvedRate usd(LocalDate date) {
+            return new ResolvedRate(BigDecimal.ONE, FixedPointRates.toScaled(BigDecimal.ONE), date, false);
         }
-        
-        public void setExchangeRate(String exchangeRate) {
-            this.exchangeRate = exchangeRate;
+
+        /**
+         * Convert a USD amount with this rate, rounded to 2 decimal places (HALF_UP)
+         */
+        @Override
+        public BigDecimal convert(BigDecimal usdAmount) {
+            return scaledRate != FixedPointRates.NOT_FIXED
+                ? FixedPointRates.convert(usdAmount, scaledRate)
+                : usdAmount.multiply(rate).setScale(2, RoundingMode.HALF_UP);
         }
-        
-        public String getRecordDate() {
-            return recordDate;
+    }
+
+    /**
+     * An exchange rate ready to convert amounts with
+     */
+    public interface ConversionRate {
+        BigDecimal rate();
+
+        boolean stale();
+
+        /**
+         * Convert an amount with this rate, rounded to 2 decimal places (HALF_UP)
+         */
+        BigDecimal convert(BigDecimal amount);
+    }
+
+    /**
+     * A rate between two non-USD currencies, derived from their USD legs
+     * {@code rate} is units of the target currency per 1 unit of the source currency
+     */
+    public record CrossRate(BigDecimal rate, ResolvedRate sourceLeg, ResolvedRate targetLeg) implements ConversionRate {
+
+        @Override
+        public boolean stale() {
+            return sourceLeg.stale() || targetLeg.stale();
         }
-        
-        public void setRecordDate(String recordDate) {
-            this.recordDate = recordDate;
+
+        /**
+         * Converted from the exact legs (amount * target / source) so the rounded cross rate
+         * never adds a second rounding step
+         */
+        @Override
+        public BigDecimal convert(BigDecimal amount) {
+            return amount.multiply(targetLeg.rate()).divide(sourceLeg.rate(), 2, RoundingMode.HALF_UP);
         }
     }
+
+    record RateWindowKey(String currencyCode, LocalDate from, LocalDate to) {
+    }
+
+    /**
+     * True for the stored currency itself (USD), which converts at 1.0 without a rate lookup
+     */
+    public boolean isUsdCurrency(String currency) {
+        return currency != null && isUsd(currency.trim());
+    }
+
+    private boolean isUsd(String currency) {
+        return "USD".equalsIgnoreCase(currency) ||
+            "United States-Dollar".equalsIgnoreCase(currency) ||
+            "United States".equalsIgnoreCase(currency);
+    }
 }
@@ -0,0 +1,340 @@
+package com.wexapp.purchaseapp.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * In-memory time series of Treasury exchange rates, one series per country_currency_desc.
+ * Each series is a pair of primitive arrays, epoch days and fixed-point rates
+ * ({@link FixedPointRates}), sorted by record_date so "latest rate on or before a date" is a
+ * binary search,
+ * and remembers the contiguous date range already loaded from Treasury so callers only go
+ * to the network for currencies or dates that have not been seen yet.
+ * A shared range covers every currency at once, for bulk loads such as the persisted rate table.
+ * An attached {@link RateSnapshot} is a read-only base layer under the series, queried in place.
+ */
+public class ExchangeRateIndex {
+
+    /**
+     * Dates this close to today may still receive new Treasury records, so the part of a
+     * series that touches them is re-checked once the recent TTL has passed.
+     */
+    private static final int RECENT_DAYS = 7;
+
+    private final ConcurrentMap<String, Series> seriesByCurrency = new ConcurrentHashMap<>();
+    private final Coverage sharedCoverage = new Coverage();
+    private volatile RateSnapshot snapshot;
+    private final Duration recentTtl;
+    private final Clock clock;
+
+    public ExchangeRateIndex(Duration recentTtl) {
+        this(recentTtl, Clock.systemDefaultZone());
+    }
+
+    ExchangeRateIndex(Duration recentTtl, Clock clock) {
+        this.recentTtl = recentTtl;
+        this.clock = clock;
+    }
+
+    /**
+     * Get the date ranges inside [from, to] that still have to be fetched for a currency.
+     * Returns an empty list when the whole window is already loaded.
+     */
+    public List<DateRange> missingRanges(String currencyCode, LocalDate from, LocalDate to) {
+        // Nothing is published after today, so the future never needs fetching
+        LocalDate today = LocalDate.now(clock);
+        LocalDate cappedTo = to.isAfter(today) ? today : to;
+        List<DateRange> missing = new ArrayList<>();
+        if (cappedTo.isBefore(from)) {
+            return missing;
+        }
+
+        Series series = seriesByCurrency.get(currencyCode);
+        DateRange loaded = combine(series != null ? series.coverage.effectiveRange() : null,
+            sharedCoverage.effectiveRange());
+        if (loaded == null) {
+            missing.add(new DateRange(from, cappedTo));
+            return missing;
+        }
+
+        // Keep the loaded range contiguous: anything between the request and the loaded
+        // range is fetched as well, so a series never has holes.
+        if (from.isBefore(loaded.from())) {
+            missing.add(new DateRange(from, loaded.from().minusDays(1)));
+        }
+        if (cappedTo.isAfter(loaded.to())) {
+            missing.add(new DateRange(loaded.to().plusDays(1), cappedTo));
+        }
+        return missing;
+    }
+
+    /**
+     * Record rates fetched from Treasury for [from, to] and mark that range as loaded.
+     * The range must touch or overlap the range already loaded for the currency.
+     */
+    public void load(String currencyCode, LocalDate from, LocalDate to, Map<LocalDate, BigDecimal> rates) {
+        Series series = seriesByCurrency.computeIfAbsent(currencyCode, key -> new Series());
+        series.putAll(rates);
+        series.coverage.extend(from, to);
+    }
+
+    /**
+     * Record rates of many currencies loaded in bulk for [from, to] and mark that range as
+     * loaded for every currency, including ones with no records in it.
+     */
+    public void loadAll(Collection<TreasuryClient.TreasuryRate> rates, LocalDate from, LocalDate to) {
+        Map<String, Map<LocalDate, BigDecimal>> byCurrency = new HashMap<>();
+        for (TreasuryClient.TreasuryRate rate : rates) {
+            byCurrency.computeIfAbsent(rate.currencyCode(), key -> new HashMap<>())
+                    .put(rate.recordDate(), rate.exchangeRate());
+        }
+        byCurrency.forEach((currencyCode, currencyRates) ->
+            seriesByCurrency.computeIfAbsent(currencyCode, key -> new Series()).putAll(currencyRates));
+        sharedCoverage.extend(from, to);
+    }
+
+    /**
+     * Use a memory-mapped snapshot as the base layer and mark its range as loaded for every
+     * currency. Replaces any previously attached snapshot.
+     */
+    public void attach(RateSnapshot rateSnapshot) {
+        this.snapshot = rateSnapshot;
+        sharedCoverage.extend(rateSnapshot.coveredFrom(), rateSnapshot.coveredTo());
+    }
+
+    /**
+     * Find the latest rate recorded on or before {@code date} and not before {@code notBefore}.
+     * Records loaded into the series win over the snapshot for the same date.
+     */
+    public Optional<RateEntry> floor(String currencyCode, LocalDate date, LocalDate notBefore) {
+        RateEntry found = null;
+        Series series = seriesByCurrency.get(currencyCode);
+        if (series != null) {
+            found = series.floor((int) date.toEpochDay(), (int) notBefore.toEpochDay());
+        }
+        RateSnapshot base = snapshot;
+        if (base != null) {
+            Optional<RateEntry> fromSnapshot = base.floor(currencyCode, date, notBefore);
+            if (fromSnapshot.isPresent() && (found == null || fromSnapshot.get().recordDate().isAfter(found.recordDate()))) {
+                found = fromSnapshot.get();
+            }
+        }
+        return Optional.ofNullable(found);
+    }
+
+    public int size() {
+        RateSnapshot base = snapshot;
+        return seriesByCurrency.values().stream().mapToInt(series -> series.data.days.length).sum()
+            + (base != null ? base.size() : 0);
+    }
+
+    /**
+     * Rates come from Treasury as text and from the exchange_rates table with a fixed scale;
+     * drop trailing zeros so the same rate looks the same whichever way it was loaded.
+     * Only used for the rare rate that does not fit the fixed-point form, which is normalized
+     * the same way by {@link FixedPointRates#toBigDecimal}.
+     */
+    private static BigDecimal normalize(BigDecimal rate) {
+        BigDecimal stripped = rate.stripTrailingZeros();
+        return stripped.scale() < 0 ? stripped.setScale(0) : stripped;
+    }
+
+    /**
+     * Union of a currency's own range and the shared range when they touch; otherwise the
+     * shared range wins and the isolated part is simply fetched again when needed.
+     */
+    private static DateRange combine(DateRange own, DateRange shared) {
+        if (own == null) {
+            return shared;
+        }
+        if (shared == null) {
+            return own;
+        }
+        boolean touching = !own.from().isAfter(shared.to().plusDays(1))
+            && !shared.from().isAfter(own.to().plusDays(1));
+        if (!touching) {
+            return shared;
+        }
+        return new DateRange(
+            own.from().isBefore(shared.from()) ? own.from() : shared.from(),
+            own.to().isAfter(shared.to()) ? own.to() : shared.to());
+    }
+
+    /**
+     * One currency's rates. Readers binary-search an immutable {@link SeriesData} without locking;
+     * loads (rare, one per fetched window) merge into a new copy and publish it.
+     */
+    private class Series {
+        private volatile SeriesData data = SeriesData.EMPTY;
+        private final Coverage coverage = new Coverage();
+
+        synchronized void putAll(Map<LocalDate, BigDecimal> rates) {
+            if (rates.isEmpty()) {
+                return;
+            }
+            int[] newDays = new int[rates.size()];
+            int n = 0;
+            for (LocalDate recordDate : rates.keySet()) {
+                newDays[n++] = (int) recordDate.toEpochDay();
+            }
+            Arrays.sort(newDays);
+
+            SeriesData current = data;
+            int[] days = new int[current.days.length + newDays.length];
+            long[] scaled = new long[days.length];
+            Map<Integer, BigDecimal> exact = new HashMap<>();
+            int i = 0;
+            int j = 0;
+            int size = 0;
+            // Merge by date; a newly loaded record replaces a stored one for the same date
+            while (i < current.days.length || j < newDays.length) {
+                if (j >= newDays.length || (i < current.days.length && current.days[i] < newDays[j])) {
+                    days[size] = current.days[i];
+                    scaled[size] = current.rates[i];
+                    if (scaled[size] == FixedPointRates.NOT_FIXED) {
+                        exact.put(days[size], current.exact.get(days[size]));
+                    }
+                    i++;
+                } else {
+                    if (i < current.days.length && current.days[i] == newDays[j]) {
+                        i++;
+                    }
+                    days[size] = newDays[j];
+                    BigDecimal rate = rates.get(LocalDate.ofEpochDay(newDays[j]));
+                    scaled[size] = FixedPointRates.toScaled(rate);
+                    if (scaled[size] == FixedPointRates.NOT_FIXED) {
+                        exact.put(days[size], normalize(rate));
+                    }
+                    j++;
+                }
+                size++;
+            }
+            data = new SeriesData(Arrays.copyOf(days, size), Arrays.copyOf(scaled, size),
+                exact.isEmpty() ? Map.of() : exact);
+        }
+
+        RateEntry floor(int day, int notBeforeDay) {
+            SeriesData current = data;
+            int index = floorIndex(current.days, day);
+            if (index < 0 || current.days[index] < notBeforeDay) {
+                return null;
+            }
+            long scaled = current.rates[index];
+            return new RateEntry(LocalDate.ofEpochDay(current.days[index]), scaled,
+                scaled == FixedPointRates.NOT_FIXED ? current.exact.get(current.days[index]) : null);
+        }
+    }
+
+    /**
+     * Index of the last element {@code <= key} in a sorted array, or -1
+     */
+    static int floorIndex(int[] sorted, int key) {
+        int index = Arrays.binarySearch(sorted, key);
+        return index >= 0 ? index : -index - 2;
+    }
+
+    private static final class SeriesData {
+        private static final SeriesData EMPTY = new SeriesData(new int[0], new long[0], Map.of());
+
+        private final int[] days;
+        private final long[] rates;
+        // Rates that do not fit the fixed-point form (marked NOT_FIXED in rates), by epoch day
+        private final Map<Integer, BigDecimal> exact;
+
+        private SeriesData(int[] days, long[] rates, Map<Integer, BigDecimal> exact) {
+            this.days = days;
+            this.rates = rates;
+            this.exact = exact;
+        }
+    }
+
+    /**
+     * A contiguous loaded date range plus when its recent part was last fetched
+     */
+    private class Coverage {
+        private LocalDate loadedFrom;
+        private LocalDate loadedTo;
+        private Instant recentLoadedAt;
+
+        synchronized void extend(LocalDate from, LocalDate to) {
+            LocalDate today = LocalDate.now(clock);
+            LocalDate cappedTo = to.isAfter(today) ? today : to;
+            if (cappedTo.isBefore(from)) {
+                return;
+            }
+            if (loadedFrom == null || from.isBefore(loadedFrom)) {
+                loadedFrom = from;
+            }
+            if (loadedTo == null || cappedTo.isAfter(loadedTo)) {
+                loadedTo = cappedTo;
+            }
+            // Only a fetch that reaches the end of the range refreshes its recent part
+            if (!cappedTo.isBefore(loadedTo) && !cappedTo.isBefore(today.minusDays(RECENT_DAYS))) {
+                recentLoadedAt = clock.instant();
+            }
+        }
+
+        /**
+         * The loaded range, with its end pulled back out of the recent zone once the recent
+         * TTL has expired so that newly published records are picked up
+         */
+        synchronized DateRange effectiveRange() {
+            if (loadedFrom == null) {
+                return null;
+            }
+            LocalDate recentStart = LocalDate.now(clock).minusDays(RECENT_DAYS);
+            if (!loadedTo.isBefore(recentStart) && recentLoadedAt != null
+                    && recentLoadedAt.plus(recentTtl).isBefore(clock.instant())) {
+                LocalDate settled = recentStart.minusDays(1);
+                if (settled.isBefore(loadedFrom)) {
+                    return null;
+                }
+                return new DateRange(loadedFrom, settled);
+            }
+            return new DateRange(loadedFrom, loadedTo);
+        }
+    }
+
+    public record DateRange(LocalDate from, LocalDate to) {
+    }
+
+    /**
+     * A stored rate: fixed-point when it fits ({@code exactRate} null), otherwise the exact value
+     */
+    public record RateEntry(LocalDate recordDate, long scaledRate, BigDecimal exactRate) {
+
+        public static RateEntry of(LocalDate recordDate, BigDecimal rate) {
+            long scaled = FixedPointRates.toScaled(rate);
+            return new RateEntry(recordDate, scaled, scaled == FixedPointRates.NOT_FIXED ? normalize(rate) : null);
+        }
+
+        /**
+         * The rate as reported to clients (trailing zeros stripped)
+         */
+        public BigDecimal rate() {
+            return exactRate != null ? exactRate : FixedPointRates.toBigDecimal(scaledRate);
+        }
+
+        /**
+         * Convert a USD amount with this rate, rounded to 2 decimal places (HALF_UP)
+         */
+        public BigDecimal convert(BigDecimal usdAmount) {
+            return exactRate != null
+                ? usdAmount.multiply(exactRate).setScale(2, RoundingMode.HALF_UP)
+                : FixedPointRates.convert(usdAmount, scaledRate);
+        }
+    }
+}
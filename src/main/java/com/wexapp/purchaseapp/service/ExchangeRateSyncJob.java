@@ -0,0 +1,198 @@
+package com.wexapp.purchaseapp.service;
+
+import com.wexapp.purchaseapp.entity.ExchangeRate;
+import com.wexapp.purchaseapp.repository.ExchangeRateRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the exchange_rates table in step with Treasury and feeds it to CurrencyService
+ * On startup the stored history is loaded into memory (only the part newer than the rate snapshot
+ * when one is attached), then only records newer than the
+ * latest stored record_date are fetched (record_date:gt: filter), on startup and on a schedule
+ */
+@Component
+@ConditionalOnProperty(name = "currency.rates.sync.enabled", havingValue = "true", matchIfMissing = true)
+public class ExchangeRateSyncJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExchangeRateSyncJob.class);
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private TreasuryClient treasuryClient;
+
+    @Autowired
+    private CurrencyService currencyService;
+
+    @Autowired
+    private RateSnapshotService rateSnapshotService;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${currency.rates.sync.history-start:2001-01-01}")
+    private String historyStart;
+
+    private TransactionTemplate transaction;
+
+    @PostConstruct
+    public void init() {
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    // Before the startup warm-up, which then finds the stored windows already loaded
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onApplicationReady() {
+        loadStoredRates();
+        sync();
+    }
+
+    @Scheduled(initialDelayString = "${currency.rates.sync.interval-minutes:60}",
+            fixedDelayString = "${currency.rates.sync.interval-minutes:60}",
+            timeUnit = TimeUnit.MINUTES)
+    public void scheduledSync() {
+        sync();
+    }
+
+    /**
+     * Load the stored history into the in-memory rate index
+     * The snapshot already serves everything up to its covered-to date, so only newer rows are read
+     */
+    public void loadStoredRates() {
+        Optional<RateSnapshot> snapshot = rateSnapshotService.current();
+        if (snapshot.isPresent()) {
+            LocalDate snapshotEnd = snapshot.get().coveredTo();
+            List<ExchangeRate> newer = exchangeRateRepository.findByRecordDateAfterOrderByRecordDateAsc(snapshotEnd);
+            if (!newer.isEmpty()) {
+                currencyService.loadStoredRates(toTreasuryRates(newer), snapshotEnd.plusDays(1),
+                    newer.get(newer.size() - 1).getRecordDate());
+            }
+            return;
+        }
+
+        List<ExchangeRate> stored = exchangeRateRepository.findAllByOrderByRecordDateAsc();
+        if (stored.isEmpty()) {
+            logger.info("No stored exchange rates yet");
+            return;
+        }
+        LocalDate start = LocalDate.parse(historyStart);
+        LocalDate earliest = stored.get(0).getRecordDate();
+        LocalDate latest = stored.get(stored.size() - 1).getRecordDate();
+        currencyService.loadStoredRates(toTreasuryRates(stored), earliest.isBefore(start) ? earliest : start, latest);
+    }
+
+    /**
+     * Fetch and store rates published after the latest stored record_date
+     * Failures are logged and leave the stored rates in place for conversions
+     */
+    public synchronized void sync() {
+        LocalDate latest = exchangeRateRepository.findLatestRecordDate();
+        LocalDate start = LocalDate.parse(historyStart);
+        try {
+            List<TreasuryClient.TreasuryRate> fetched = treasuryClient.fetchRatesAfter(latest, start);
+
+            // Treasury can repeat a (currency, record_date) pair; keep the first one
+            Map<String, ExchangeRate> newRates = new LinkedHashMap<>();
+            for (TreasuryClient.TreasuryRate rate : fetched) {
+                newRates.computeIfAbsent(rate.currencyCode() + "|" + rate.recordDate(),
+                        key -> newEntity(rate.currencyCode(), rate.recordDate(), rate.exchangeRate()));
+            }
+            // One transaction for the whole batch, opened only after the Treasury call has returned
+            try {
+                transaction.executeWithoutResult(status -> exchangeRateRepository.saveAll(newRates.values()));
+            } catch (DataIntegrityViolationException e) {
+                storeMissing(latest, newRates);
+            }
+
+            currencyService.loadStoredRates(toTreasuryRates(new ArrayList<>(newRates.values())),
+                latest != null ? latest : start, LocalDate.now());
+            publishUpdates(newRates.values());
+            logger.info("Exchange rate sync stored {} new rates (previous latest record date: {})",
+                newRates.size(), latest);
+        } catch (Exception e) {
+            logger.warn("Exchange rate sync failed, keeping stored rates: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Another instance synced the same window first (unique currency and record_date); store only the
+     * records it did not, so the batch is still loaded and published here
+     */
+    private void storeMissing(LocalDate latest, Map<String, ExchangeRate> newRates) {
+        List<ExchangeRate> stored = latest != null
+                ? exchangeRateRepository.findByRecordDateAfterOrderByRecordDateAsc(latest)
+                : exchangeRateRepository.findAllByOrderByRecordDateAsc();
+        Set<String> storedKeys = stored.stream()
+                .map(rate -> rate.getCurrencyCode() + "|" + rate.getRecordDate())
+                .collect(Collectors.toSet());
+        // Fresh entities: the rolled-back attempt has already assigned ids to the originals
+        List<ExchangeRate> missing = newRates.entrySet().stream()
+                .filter(entry -> !storedKeys.contains(entry.getKey()))
+                .map(entry -> newEntity(entry.getValue().getCurrencyCode(), entry.getValue().getRecordDate(),
+                        entry.getValue().getExchangeRate()))
+                .collect(Collectors.toList());
+        logger.info("{} of {} synced rates were already stored by another instance",
+                newRates.size() - missing.size(), newRates.size());
+        if (!missing.isEmpty()) {
+            transaction.executeWithoutResult(status -> exchangeRateRepository.saveAll(missing));
+        }
+    }
+
+    private static ExchangeRate newEntity(String currencyCode, LocalDate recordDate, BigDecimal exchangeRate) {
+        ExchangeRate entity = new ExchangeRate();
+        entity.setCurrencyCode(currencyCode);
+        entity.setRecordDate(recordDate);
+        entity.setExchangeRate(exchangeRate);
+        return entity;
+    }
+
+    /**
+     * Every synced record is newer than the stored history; report the new record dates per currency
+     */
+    private void publishUpdates(Collection<ExchangeRate> newRates) {
+        Map<String, List<LocalDate>> datesByCurrency = newRates.stream()
+                .collect(Collectors.groupingBy(ExchangeRate::getCurrencyCode,
+                        Collectors.mapping(ExchangeRate::getRecordDate, Collectors.toList())));
+        datesByCurrency.forEach((currencyCode, dates) -> eventPublisher.publishEvent(new ExchangeRatesUpdatedEvent(
+                currencyCode, Collections.min(dates), Collections.max(dates))));
+    }
+
+    private List<TreasuryClient.TreasuryRate> toTreasuryRates(List<ExchangeRate> rates) {
+        return rates.stream()
+                .map(rate -> new TreasuryClient.TreasuryRate(rate.getCurrencyCode(), rate.getRecordDate(), rate.getExchangeRate()))
+                .collect(Collectors.toList());
+    }
+}
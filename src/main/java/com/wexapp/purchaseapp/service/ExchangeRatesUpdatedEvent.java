@@ -0,0 +1,10 @@
+package com.wexapp.purchaseapp.service;
+
+import java.time.LocalDate;
+
+/**
+ * Published when Treasury records not seen before are loaded for a currency
+ * Carries the range of the new record dates; conversions made before may now resolve to a newer rate
+ */
+public record ExchangeRatesUpdatedEvent(String currencyCode, LocalDate earliestRecordDate, LocalDate latestRecordDate) {
+}
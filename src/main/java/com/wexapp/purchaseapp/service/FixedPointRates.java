@@ -0,0 +1,105 @@
+package com.wexapp.purchaseapp.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point representation of exchange rates and the USD conversion kernel
+ * Rates are held as unscaled longs at {@link #RATE_SCALE} decimals. Conversions multiply integer
+ * cents by the scaled rate and round HALF_UP back to cents, which gives exactly the value (and
+ * scale) of {@code usdAmount.multiply(rate).setScale(2, HALF_UP)}; anything that does not fit in
+ * a long falls back to that BigDecimal expression
+ */
+public final class FixedPointRates {
+
+    public static final int RATE_SCALE = 8;
+
+    /**
+     * Marker for a rate that cannot be represented at {@link #RATE_SCALE} in a long
+     */
+    public static final long NOT_FIXED = Long.MIN_VALUE;
+
+    private static final long RATE_FACTOR = 100_000_000L;
+    private static final int CENTS_SCALE = 2;
+
+    private FixedPointRates() {
+    }
+
+    /**
+     * @return the rate as an unscaled long at {@link #RATE_SCALE}, or {@link #NOT_FIXED}
+     */
+    public static long toScaled(BigDecimal rate) {
+        if (rate.scale() > RATE_SCALE) {
+            rate = rate.stripTrailingZeros();
+            if (rate.scale() > RATE_SCALE) {
+                return NOT_FIXED;
+            }
+        }
+        try {
+            return rate.movePointRight(RATE_SCALE).longValueExact();
+        } catch (ArithmeticException e) {
+            return NOT_FIXED;
+        }
+    }
+
+    /**
+     * Rescale an unscaled value stored at {@code scale} (at most {@link #RATE_SCALE})
+     *
+     * @return the value at {@link #RATE_SCALE}, or {@link #NOT_FIXED} on overflow
+     */
+    public static long rescale(long unscaled, int scale) {
+        long factor = 1;
+        for (int i = scale; i < RATE_SCALE; i++) {
+            factor *= 10;
+        }
+        long high = Math.multiplyHigh(unscaled, factor);
+        long low = unscaled * factor;
+        if ((high == 0 && low >= 0) || (high == -1 && low < 0)) {
+            return low == NOT_FIXED ? NOT_FIXED : low;
+        }
+        return NOT_FIXED;
+    }
+
+    /**
+     * The rate as a BigDecimal without trailing zeros (the form rates are reported in)
+     */
+    public static BigDecimal toBigDecimal(long scaledRate) {
+        BigDecimal value = BigDecimal.valueOf(scaledRate, RATE_SCALE).stripTrailingZeros();
+        return value.scale() < 0 ? value.setScale(0) : value;
+    }
+
+    /**
+     * Convert a USD amount with a scaled rate, rounded to 2 decimal places (HALF_UP)
+     */
+    public static BigDecimal convert(BigDecimal usdAmount, long scaledRate) {
+        if (scaledRate == NOT_FIXED) {
+            throw new IllegalArgumentException("Rate is not fixed-point");
+        }
+        if (usdAmount.scale() >= 0 && usdAmount.scale() <= CENTS_SCALE) {
+            try {
+                long product = Math.multiplyExact(usdAmount.movePointRight(CENTS_SCALE).longValueExact(), scaledRate);
+                long quotient = product / RATE_FACTOR;
+                long remainder = product % RATE_FACTOR;
+                // HALF_UP: a remainder of at least half rounds away from zero
+                if (Math.abs(remainder) >= RATE_FACTOR / 2) {
+                    quotient += Long.signum(product);
+                }
+                return BigDecimal.valueOf(quotient, CENTS_SCALE);
+            } catch (ArithmeticException e) {
+                // Amount or product beyond a long: fall back to BigDecimal
+            }
+        }
+        return usdAmount.multiply(toBigDecimal(scaledRate)).setScale(CENTS_SCALE, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Convert a USD amount with any rate, taking the fixed-point path when the rate fits
+     */
+    public static BigDecimal convert(BigDecimal usdAmount, BigDecimal rate) {
+        long scaledRate = toScaled(rate);
+        if (scaledRate == NOT_FIXED) {
+            return usdAmount.multiply(rate).setScale(CENTS_SCALE, RoundingMode.HALF_UP);
+        }
+        return convert(usdAmount, scaledRate);
+    }
+}
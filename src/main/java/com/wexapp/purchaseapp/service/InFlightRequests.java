@@ -0,0 +1,62 @@
+package com.wexapp.purchaseapp.service;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Registry of upstream calls that are currently running, keyed by their normalized query.
+ * The first caller for a key runs the call; callers arriving while it is pending wait for
+ * the same result (or the same failure) instead of issuing an identical request.
+ */
+public class InFlightRequests<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Run {@code loader} for {@code key}, or join the call already running for it
+     *
+     * @return The loader's result, shared with every concurrent caller for the key
+     */
+    public V execute(K key, Supplier<V> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            return await(existing);
+        }
+
+        try {
+            V value = loader.get();
+            created.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            // Later callers start a fresh call; the result itself is cached elsewhere
+            inFlight.remove(key, created);
+        }
+    }
+
+    public int size() {
+        return inFlight.size();
+    }
+
+    private V await(CompletableFuture<V> pending) {
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            // Hand waiters the same exception the leader saw
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.wexapp.purchaseapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wexapp.purchaseapp.repository.PurchaseRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Append-only NDJSON file of purchases accepted for asynchronous ingestion but not yet committed
+ * Appends are serialized; {@link #sync(long)} forces them to disk in groups, so concurrent requests
+ * share one fsync. The file is emptied once everything in it is committed, and rewritten with only
+ * the pending purchases when it grows past the compaction size
+ * Lock order: syncLock before this (the append lock), in every method that takes both
+ */
+final class IngestSpillFile {
+
+    private static final Logger logger = LoggerFactory.getLogger(IngestSpillFile.class);
+
+    private final Path path;
+    private final ObjectMapper objectMapper;
+    private final Object syncLock = new Object();
+    private FileChannel channel;
+    private long appended;
+    private volatile long synced;
+
+    IngestSpillFile(Path path, ObjectMapper objectMapper) throws IOException {
+        this.path = path;
+        this.objectMapper = objectMapper;
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        this.channel = open(path);
+    }
+
+    /**
+     * Purchases left by the previous run (not committed before it stopped); unreadable lines are skipped
+     */
+    synchronized List<PurchaseRow> readAll() throws IOException {
+        List<PurchaseRow> rows = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    rows.add(objectMapper.readValue(line, PurchaseRow.class));
+                } catch (IOException e) {
+                    // A crash can leave a torn last line; it was never acknowledged
+                    logger.warn("Skipping unreadable line in {}: {}", path, e.getMessage());
+                }
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Append one purchase (written to the OS, not yet forced to disk)
+     *
+     * @return Sequence number to pass to {@link #sync(long)}
+     */
+    synchronized long append(PurchaseRow row) throws IOException {
+        ByteBuffer line = ByteBuffer.wrap((objectMapper.writeValueAsString(row) + "\n").getBytes(StandardCharsets.UTF_8));
+        while (line.hasRemaining()) {
+            channel.write(line);
+        }
+        return ++appended;
+    }
+
+    /**
+     * Force appends up to {@code sequence} to disk; one caller's fsync covers every append before it
+     */
+    void sync(long sequence) throws IOException {
+        if (synced >= sequence) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (synced >= sequence) {
+                return;
+            }
+            long target;
+            FileChannel current;
+            synchronized (this) {
+                target = appended;
+                current = channel;
+            }
+            current.force(false);
+            synced = Math.max(synced, target);
+        }
+    }
+
+    synchronized long size() throws IOException {
+        return channel.size();
+    }
+
+    /**
+     * Replace the content with the given pending purchases; an empty collection truncates the file
+     */
+    void rewrite(Collection<PurchaseRow> pending) throws IOException {
+        synchronized (syncLock) {
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    channel.truncate(0);
+                    channel.force(false);
+                } else {
+                    Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+                    try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                        for (PurchaseRow row : pending) {
+                            ByteBuffer line = ByteBuffer.wrap((objectMapper.writeValueAsString(row) + "\n")
+                                    .getBytes(StandardCharsets.UTF_8));
+                            while (line.hasRemaining()) {
+                                out.write(line);
+                            }
+                        }
+                        out.force(true);
+                    }
+                    channel.close();
+                    Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                    channel = open(path);
+                }
+                synced = appended;
+            }
+        }
+    }
+
+    synchronized void close() throws IOException {
+        channel.force(false);
+        channel.close();
+    }
+
+    private static FileChannel open(Path path) throws IOException {
+        return FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,62 @@
+package com.wexapp.purchaseapp.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded set of lookups known to have no result, each remembered until its TTL expires
+ * Entries are kept in insertion order, which is also expiry order since every entry gets the same TTL;
+ * when full, expired entries are dropped first and then the oldest live ones
+ */
+class MissCache<K> {
+
+    private final Map<K, Instant> misses = new LinkedHashMap<>();
+    private final Duration ttl;
+    private final int maxSize;
+    private final Clock clock;
+
+    MissCache(Duration ttl, int maxSize) {
+        this(ttl, maxSize, Clock.systemUTC());
+    }
+
+    MissCache(Duration ttl, int maxSize, Clock clock) {
+        this.ttl = ttl;
+        this.maxSize = maxSize;
+        this.clock = clock;
+    }
+
+    synchronized boolean contains(K key) {
+        Instant expiresAt = misses.get(key);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt.isBefore(clock.instant())) {
+            misses.remove(key);
+            return false;
+        }
+        return true;
+    }
+
+    synchronized void add(K key) {
+        Instant now = clock.instant();
+        // Re-adding moves the key to the end, keeping the map ordered by expiry
+        misses.remove(key);
+        Iterator<Instant> oldest = misses.values().iterator();
+        while (oldest.hasNext()) {
+            Instant expiresAt = oldest.next();
+            if (!expiresAt.isBefore(now) && misses.size() < maxSize) {
+                break;
+            }
+            oldest.remove();
+        }
+        misses.put(key, now.plus(ttl));
+    }
+
+    synchronized int size() {
+        return misses.size();
+    }
+}
@@ -0,0 +1,88 @@
+package com.wexapp.purchaseapp.service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+/**
+ * In-memory two-way view of a small name/id lookup table
+ * Every name handed out for an id is the same String instance, so loaded entities share one copy
+ * of each country or currency name instead of carrying their own
+ */
+final class NameDictionary {
+
+    private final String kind;
+    private final ConcurrentMap<String, Short> idsByName = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Short, String> namesById = new ConcurrentHashMap<>();
+
+    NameDictionary(String kind) {
+        this.kind = kind;
+    }
+
+    /**
+     * Get the id for a name, registering it through {@code register} the first time it is seen
+     */
+    Short idFor(String name, Function<String, Short> register) {
+        Short id = idsByName.get(name);
+        if (id == null) {
+            id = register.apply(name);
+            remember(id, name);
+        }
+        return id;
+    }
+
+    /**
+     * Get the id of a name already registered through {@link #idFor}; never touches the database
+     */
+    Short require(String name) {
+        Short id = idsByName.get(name);
+        if (id == null) {
+            throw new IllegalStateException("Unregistered " + kind + " '" + name + "'");
+        }
+        return id;
+    }
+
+    /**
+     * Get the id for a name without registering it; null if {@code lookup} does not know it either
+     */
+    Short find(String name, Function<String, Short> lookup) {
+        Short id = idsByName.get(name);
+        if (id == null) {
+            id = lookup.apply(name);
+            if (id != null) {
+                remember(id, name);
+            }
+        }
+        return id;
+    }
+
+    /**
+     * Get the canonical name for an id, reading it through {@code lookup} if it was added elsewhere
+     */
+    String nameFor(Short id, Function<Short, String> lookup) {
+        String name = namesById.get(id);
+        if (name == null) {
+            name = lookup.apply(id);
+            if (name == null) {
+                throw new IllegalStateException("Unknown " + kind + " id " + id);
+            }
+            name = remember(id, name);
+        }
+        return name;
+    }
+
+    String remember(Short id, String name) {
+        String canonical = namesById.computeIfAbsent(id, key -> name);
+        idsByName.putIfAbsent(canonical, id);
+        return canonical;
+    }
+
+    void rememberAll(Map<Short, String> entries) {
+        entries.forEach(this::remember);
+    }
+
+    int size() {
+        return namesById.size();
+    }
+}
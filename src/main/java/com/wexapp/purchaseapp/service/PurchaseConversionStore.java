@@ -0,0 +1,153 @@
+package com.wexapp.purchaseapp.service;
+
+import com.wexapp.purchaseapp.entity.PurchaseConversion;
+import com.wexapp.purchaseapp.repository.PurchaseConversionRepository;
+import com.wexapp.purchaseapp.repository.StoredConversion;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Materialized conversions in purchase_conversions, keyed by (purchase id, target currency)
+ * Filled lazily as conversions are computed; rows are dropped when their purchase is deleted or
+ * when a newer Treasury record lands inside their rate window ({@link ExchangeRatesUpdatedEvent})
+ * Writes run in their own transaction and failures (including no connection being available for it)
+ * are only logged: the store is a cache, and the conversion can always be computed again
+ */
+@Service
+public class PurchaseConversionStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(PurchaseConversionStore.class);
+
+    // Bound on the IN list of one lookup
+    private static final int LOOKUP_BATCH_SIZE = 1000;
+
+    @Autowired
+    private PurchaseConversionRepository conversionRepository;
+
+    @Autowired
+    private PurchaseDictionary purchaseDictionary;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${purchases.conversions.materialized:true}")
+    private boolean enabled;
+
+    private TransactionTemplate newTransaction;
+
+    @PostConstruct
+    public void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Stored conversions of the given purchases into a target currency, by purchase id
+     */
+    public Map<UUID, StoredConversion> find(String targetCurrency, List<UUID> purchaseIds) {
+        Map<UUID, StoredConversion> found = new HashMap<>();
+        // A currency without a dictionary id has never been stored
+        if (purchaseIds.isEmpty() || purchaseDictionary.findCurrencyId(targetCurrency).isEmpty()) {
+            return found;
+        }
+        for (int start = 0; start < purchaseIds.size(); start += LOOKUP_BATCH_SIZE) {
+            List<UUID> batch = purchaseIds.subList(start, Math.min(start + LOOKUP_BATCH_SIZE, purchaseIds.size()));
+            for (StoredConversion conversion : conversionRepository.findStored(targetCurrency, batch)) {
+                // DECIMAL columns pad the rate; show it the way the rate index does
+                found.put(conversion.purchaseId(), new StoredConversion(conversion.purchaseId(),
+                        conversion.convertedAmount(), normalize(conversion.exchangeRate())));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Store newly computed conversions; rows another request stored first are left as they are
+     * The caller has just looked the purchases up, so the batch is inserted directly; if a concurrent
+     * request won the race for some rows, the batch is retried once without them
+     */
+    public void saveAll(String targetCurrency, Collection<PurchaseConversion> conversions) {
+        if (conversions.isEmpty()) {
+            return;
+        }
+        try {
+            // The dictionary id is assigned up front, outside the flush that writes the rows
+            purchaseDictionary.currencyId(targetCurrency);
+            try {
+                newTransaction.executeWithoutResult(status -> conversionRepository.saveAll(conversions));
+            } catch (DataIntegrityViolationException e) {
+                storeMissing(targetCurrency, conversions);
+            }
+        } catch (DataAccessException | TransactionException e) {
+            logger.warn("Could not store {} conversions into {}: {}", conversions.size(), targetCurrency, e.getMessage());
+        }
+    }
+
+    private void storeMissing(String targetCurrency, Collection<PurchaseConversion> conversions) {
+        Set<UUID> stored = find(targetCurrency, conversions.stream().map(PurchaseConversion::getPurchaseId).toList())
+                .keySet();
+        // Fresh entities: the rolled-back attempt has already assigned ids to the originals
+        List<PurchaseConversion> missing = conversions.stream()
+                .filter(conversion -> !stored.contains(conversion.getPurchaseId()))
+                .map(conversion -> new PurchaseConversion(null, conversion.getPurchaseId(), conversion.getTargetCurrency(),
+                        conversion.getPurchaseDate(), conversion.getConvertedAmount(), conversion.getExchangeRate(),
+                        conversion.getRateDate(), null))
+                .toList();
+        logger.debug("{} of {} conversions into {} were stored concurrently", conversions.size() - missing.size(),
+                conversions.size(), targetCurrency);
+        if (!missing.isEmpty()) {
+            newTransaction.executeWithoutResult(status -> conversionRepository.saveAll(missing));
+        }
+    }
+
+    public void deleteForPurchase(UUID purchaseId) {
+        conversionRepository.deleteByPurchaseId(purchaseId);
+    }
+
+    /**
+     * A newer Treasury record can replace the rate of purchases dated on or after it; drop their
+     * conversions so the next read computes them again
+     */
+    @EventListener
+    public void onRatesUpdated(ExchangeRatesUpdatedEvent event) {
+        if (purchaseDictionary.findCurrencyId(event.currencyCode()).isEmpty()) {
+            return;
+        }
+        try {
+            Integer deleted = newTransaction.execute(status -> conversionRepository.deleteOutdated(
+                event.currencyCode(), event.earliestRecordDate(), event.latestRecordDate()));
+            logger.debug("Invalidated {} stored conversions into {} after rates {} to {} landed",
+                deleted, event.currencyCode(), event.earliestRecordDate(), event.latestRecordDate());
+        } catch (DataAccessException | TransactionException e) {
+            logger.warn("Could not invalidate stored conversions into {}: {}", event.currencyCode(), e.getMessage());
+        }
+    }
+
+    private static BigDecimal normalize(BigDecimal rate) {
+        BigDecimal stripped = rate.stripTrailingZeros();
+        return stripped.scale() < 0 ? stripped.setScale(0) : stripped;
+    }
+}
@@ -0,0 +1,41 @@
+package com.wexapp.purchaseapp.service;
+
+import com.wexapp.purchaseapp.repository.PurchaseRow;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in the (date desc, id asc) purchase order, handed to clients as an opaque string
+ * The next page seeks past this key instead of counting rows with OFFSET
+ */
+public record PurchaseCursor(LocalDate date, UUID id) {
+
+    static PurchaseCursor of(PurchaseRow purchase) {
+        return new PurchaseCursor(purchase.date(), purchase.id());
+    }
+
+    public String encode() {
+        String key = date + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the cursor was not produced by {@link #encode()}
+     */
+    public static PurchaseCursor decode(String cursor) {
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.indexOf('|');
+            if (separator > 0 && separator < key.length() - 1) {
+                return new PurchaseCursor(LocalDate.parse(key.substring(0, separator)), UUID.fromString(key.substring(separator + 1)));
+            }
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            // Reported below as an invalid cursor
+        }
+        throw new IllegalArgumentException("Invalid cursor '" + cursor + "'");
+    }
+}
@@ -0,0 +1,137 @@
+package com.wexapp.purchaseapp.service;
+
+import com.wexapp.purchaseapp.entity.Country;
+import com.wexapp.purchaseapp.entity.Currency;
+import com.wexapp.purchaseapp.repository.CountryRepository;
+import com.wexapp.purchaseapp.repository.CurrencyRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Country and currency dictionaries behind the purchases.country_id / currency_id columns
+ * New names are inserted in their own transaction so an id, once cached, always exists in the
+ * database even if the purchase that introduced it is rolled back
+ * Writers register names before saving; the entity converters only read the cache, since an insert
+ * during a flush would need a second connection
+ */
+@Service
+public class PurchaseDictionary {
+
+    private static final Logger logger = LoggerFactory.getLogger(PurchaseDictionary.class);
+
+    @Autowired
+    private CountryRepository countryRepository;
+
+    @Autowired
+    private CurrencyRepository currencyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final NameDictionary countries = new NameDictionary("country");
+    private final NameDictionary currencies = new NameDictionary("currency");
+    private TransactionTemplate newTransaction;
+
+    @PostConstruct
+    public void init() {
+        newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        countries.rememberAll(countryRepository.findAll().stream()
+                .collect(Collectors.toMap(Country::getId, Country::getName)));
+        currencies.rememberAll(currencyRepository.findAll().stream()
+                .collect(Collectors.toMap(Currency::getId, Currency::getCode)));
+        logger.info("Loaded {} countries and {} currencies into the purchase dictionary",
+            countries.size(), currencies.size());
+    }
+
+    /**
+     * Make sure a purchase's country and currency have dictionary ids before it is saved
+     */
+    public void register(String country, String currencyCode) {
+        countryId(country);
+        currencyId(currencyCode);
+    }
+
+    public Short countryId(String name) {
+        return countries.idFor(name, key -> insertOrFind(
+            () -> countryRepository.findByName(key).map(Country::getId).orElse(null),
+            () -> countryRepository.saveAndFlush(new Country(null, key)).getId()));
+    }
+
+    /**
+     * Id of a country registered earlier (for the entity converter, while a flush is in progress)
+     *
+     * @throws IllegalStateException if the name was never registered
+     */
+    public Short registeredCountryId(String name) {
+        return countries.require(name);
+    }
+
+    /**
+     * Id of a known country, without registering unknown names (for filters)
+     */
+    public Optional<Short> findCountryId(String name) {
+        return Optional.ofNullable(countries.find(name,
+            key -> countryRepository.findByName(key).map(Country::getId).orElse(null)));
+    }
+
+    public String countryName(Short id) {
+        return countries.nameFor(id, key -> countryRepository.findById(key).map(Country::getName).orElse(null));
+    }
+
+    public Short currencyId(String code) {
+        return currencies.idFor(code, key -> insertOrFind(
+            () -> currencyRepository.findByCode(key).map(Currency::getId).orElse(null),
+            () -> currencyRepository.saveAndFlush(new Currency(null, key)).getId()));
+    }
+
+    /**
+     * Id of a currency registered earlier (for the entity converter, while a flush is in progress)
+     *
+     * @throws IllegalStateException if the code was never registered
+     */
+    public Short registeredCurrencyId(String code) {
+        return currencies.require(code);
+    }
+
+    /**
+     * Id of a known currency, without registering unknown codes (for filters)
+     */
+    public Optional<Short> findCurrencyId(String code) {
+        return Optional.ofNullable(currencies.find(code,
+            key -> currencyRepository.findByCode(key).map(Currency::getId).orElse(null)));
+    }
+
+    public String currencyCode(Short id) {
+        return currencies.nameFor(id, key -> currencyRepository.findById(key).map(Currency::getCode).orElse(null));
+    }
+
+    private Short insertOrFind(Supplier<Short> find, Supplier<Short> insert) {
+        try {
+            return newTransaction.execute(status -> {
+                Short existing = find.get();
+                return existing != null ? existing : insert.get();
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another instance inserted the same name first
+            return newTransaction.execute(status -> find.get());
+        }
+    }
+}
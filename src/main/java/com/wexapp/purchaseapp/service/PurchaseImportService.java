@@ -0,0 +1,281 @@
+package com.wexapp.purchaseapp.service;
+
+import com.wexapp.purchaseapp.dto.PurchaseBatchResultDTO;
+import com.wexapp.purchaseapp.dto.PurchaseDTO;
+import com.wexapp.purchaseapp.dto.PurchaseImportErrorDTO;
+import com.wexapp.purchaseapp.dto.PurchaseImportResultDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Streaming CSV import of purchases, as a two-stage pipeline
+ * The request thread parses rows into chunks and hands them over a bounded queue; an import worker
+ * validates and inserts each chunk in its own transaction (through the batch insert path). When the
+ * database falls behind the queue fills up, parsing blocks and the upload stops being read, so at
+ * most (queue-chunks + 2) chunks are in memory whatever the file size
+ */
+@Service
+public class PurchaseImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PurchaseImportService.class);
+
+    // Marks the end of the input on the queue
+    private static final List<ParsedRow> END_OF_INPUT = List.of();
+
+    private static final List<String> REQUIRED_COLUMNS = List.of("date", "description", "purchaseamount", "country");
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Value("${purchases.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${purchases.import.queue-chunks:4}")
+    private int queueChunks;
+
+    @Value("${purchases.import.max-record-length:4096}")
+    private int maxRecordLength;
+
+    @Value("${purchases.import.max-reported-errors:100}")
+    private int maxReportedErrors;
+
+    private final AtomicInteger workerCount = new AtomicInteger();
+    private final ExecutorService writers = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "purchase-import-" + workerCount.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @PreDestroy
+    public void shutdown() {
+        writers.shutdownNow();
+    }
+
+    /**
+     * Import purchases from a CSV stream with a header row
+     * Required columns (any order, case-insensitive): date (yyyy-MM-dd), description, purchaseAmount
+     * (USD), country; other columns are ignored. Invalid rows are counted and skipped
+     *
+     * @throws IllegalArgumentException if the header misses a required column
+     * @throws IOException if reading the upload fails
+     */
+    public PurchaseImportResultDTO importCsv(InputStream input) throws IOException {
+        long startedAt = System.nanoTime();
+        CsvRecordReader csv = new CsvRecordReader(new InputStreamReader(input, StandardCharsets.UTF_8), maxRecordLength);
+        Map<String, Integer> columns = columns(csv.next());
+
+        ImportProgress progress = new ImportProgress(maxReportedErrors);
+        BlockingQueue<List<ParsedRow>> queue = new ArrayBlockingQueue<>(Math.max(1, queueChunks));
+        Future<?> writer = writers.submit(() -> {
+            writeChunks(queue, progress);
+            return null;
+        });
+
+        boolean handedOver = false;
+        try {
+            List<ParsedRow> chunk = new ArrayList<>(chunkSize);
+            List<String> record;
+            long row = 0;
+            while ((record = csv.next()) != null) {
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                row++;
+                progress.rowsRead.incrementAndGet();
+                if (csv.lastRecordTooLong()) {
+                    progress.reject(row, Map.of("row", "Row is longer than " + maxRecordLength + " characters"));
+                    continue;
+                }
+                Map<String, String> errors = new LinkedHashMap<>();
+                PurchaseDTO purchase = parse(record, columns, errors);
+                if (!errors.isEmpty()) {
+                    progress.reject(row, errors);
+                    continue;
+                }
+                chunk.add(new ParsedRow(row, purchase));
+                if (chunk.size() == chunkSize) {
+                    if (!handOver(queue, chunk, writer)) {
+                        break;
+                    }
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            handedOver = (chunk.isEmpty() || handOver(queue, chunk, writer)) && handOver(queue, END_OF_INPUT, writer);
+        } finally {
+            if (!handedOver && !writer.isDone()) {
+                // Upload failed or the worker stopped: do not leave the worker waiting for chunks
+                writer.cancel(true);
+            }
+        }
+
+        String failure = null;
+        try {
+            writer.get();
+        } catch (ExecutionException e) {
+            failure = e.getCause().getMessage();
+            logger.error("Purchase import stopped after {} committed chunks", progress.chunksCommitted.get(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            failure = "Import interrupted";
+        }
+        return progress.toResult(failure == null, failure,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt));
+    }
+
+    /**
+     * Put a chunk on the queue, blocking while it is full (backpressure)
+     *
+     * @return false if the worker has stopped and will take no more chunks
+     */
+    private boolean handOver(BlockingQueue<List<ParsedRow>> queue, List<ParsedRow> chunk, Future<?> writer) {
+        try {
+            do {
+                if (writer.isDone()) {
+                    return false;
+                }
+            } while (!queue.offer(chunk, 1, TimeUnit.SECONDS));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void writeChunks(BlockingQueue<List<ParsedRow>> queue, ImportProgress progress) throws InterruptedException {
+        while (true) {
+            List<ParsedRow> chunk = queue.take();
+            if (chunk == END_OF_INPUT) {
+                return;
+            }
+            List<PurchaseDTO> purchases = new ArrayList<>(chunk.size());
+            for (ParsedRow parsed : chunk) {
+                purchases.add(parsed.purchase());
+            }
+            // One transaction per chunk; the batch path validates each purchase and reports it by index
+            List<PurchaseBatchResultDTO> results = purchaseService.createPurchases(purchases);
+            long created = 0;
+            for (PurchaseBatchResultDTO result : results) {
+                if (PurchaseBatchResultDTO.CREATED.equals(result.getStatus())) {
+                    created++;
+                } else {
+                    progress.reject(chunk.get(result.getIndex()).row(), result.getErrors());
+                }
+            }
+            progress.imported.addAndGet(created);
+            long chunks = progress.chunksCommitted.incrementAndGet();
+            logger.info("Purchase import: {} rows read, {} imported, {} rejected ({} chunks committed)",
+                progress.rowsRead.get(), progress.imported.get(), progress.rejected.get(), chunks);
+        }
+    }
+
+    private Map<String, Integer> columns(List<String> header) {
+        if (header == null) {
+            throw new IllegalArgumentException("CSV is empty; expected a header row with " + String.join(", ", REQUIRED_COLUMNS));
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            // purchaseAmount, purchase_amount and PURCHASE AMOUNT all name the same column
+            String name = header.get(i).trim().toLowerCase(Locale.ROOT).replace("_", "").replace(" ", "");
+            columns.putIfAbsent(name, i);
+        }
+        List<String> missing = REQUIRED_COLUMNS.stream().filter(name -> !columns.containsKey(name)).toList();
+        if (!missing.isEmpty()) {
+            throw new IllegalArgumentException("CSV header is missing column(s): " + String.join(", ", missing));
+        }
+        return columns;
+    }
+
+    private PurchaseDTO parse(List<String> record, Map<String, Integer> columns, Map<String, String> errors) {
+        PurchaseDTO purchase = new PurchaseDTO();
+        purchase.setDescription(value(record, columns, "description", false));
+        purchase.setCountry(value(record, columns, "country", true));
+
+        String date = value(record, columns, "date", true);
+        if (date != null) {
+            try {
+                purchase.setDate(LocalDate.parse(date));
+            } catch (DateTimeParseException e) {
+                errors.put("date", "Date must be in yyyy-MM-dd format");
+            }
+        }
+        String amount = value(record, columns, "purchaseamount", true);
+        if (amount != null) {
+            try {
+                purchase.setPurchaseAmount(new BigDecimal(amount));
+            } catch (NumberFormatException e) {
+                errors.put("purchaseAmount", "Purchase amount must be a number");
+            }
+        }
+        return purchase;
+    }
+
+    private String value(List<String> record, Map<String, Integer> columns, String column, boolean trim) {
+        int index = columns.get(column);
+        if (index >= record.size()) {
+            return null;
+        }
+        String value = trim ? record.get(index).trim() : record.get(index);
+        return trim && value.isEmpty() ? null : value;
+    }
+
+    private record ParsedRow(long row, PurchaseDTO purchase) {
+    }
+
+    /**
+     * Counters shared by the parsing and writing stages
+     */
+    private static final class ImportProgress {
+        final AtomicLong rowsRead = new AtomicLong();
+        final AtomicLong imported = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicLong chunksCommitted = new AtomicLong();
+        private final int maxReportedErrors;
+        private final List<PurchaseImportErrorDTO> errors = new ArrayList<>();
+
+        ImportProgress(int maxReportedErrors) {
+            this.maxReportedErrors = maxReportedErrors;
+        }
+
+        synchronized void reject(long row, Map<String, String> rowErrors) {
+            rejected.incrementAndGet();
+            if (errors.size() < maxReportedErrors) {
+                errors.add(new PurchaseImportErrorDTO(row, rowErrors));
+            }
+        }
+
+        synchronized PurchaseImportResultDTO toResult(boolean completed, String failure, long durationMs) {
+            List<PurchaseImportErrorDTO> sorted = new ArrayList<>(errors);
+            sorted.sort(Comparator.comparingLong(PurchaseImportErrorDTO::getRow));
+            return new PurchaseImportResultDTO(completed, rowsRead.get(), imported.get(), rejected.get(),
+                    chunksCommitted.get(), durationMs, sorted, failure);
+        }
+    }
+}
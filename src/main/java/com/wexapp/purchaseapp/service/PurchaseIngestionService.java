@@ -0,0 +1,386 @@
+package com.wexapp.purchaseapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wexapp.purchaseapp.dto.PurchaseDTO;
+import com.wexapp.purchaseapp.dto.PurchaseIngestStatusDTO;
+import com.wexapp.purchaseapp.entity.TimeOrderedUuid;
+import com.wexapp.purchaseapp.exception.IngestionUnavailableException;
+import com.wexapp.purchaseapp.repository.PurchaseRepository;
+import com.wexapp.purchaseapp.repository.PurchaseRow;
+import jakarta.annotation.PreDestroy;
+import org.hibernate.exception.JDBCConnectionException;
+import org.hibernate.exception.LockAcquisitionException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Write-behind ingestion for POST /api/purchases?async=true
+ * A purchase is validated, given its id, appended to the spill file and acknowledged; one writer
+ * thread drains the queue and inserts everything waiting in a single transaction (group commit), so
+ * the commit cost is shared by every purchase that arrived while the previous commit was running.
+ * Purchases stay in the spill file until committed and are replayed on the next start
+ */
+@Service
+public class PurchaseIngestionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PurchaseIngestionService.class);
+
+    private static final long POLL_MILLIS = 200;
+    private static final long INITIAL_BACKOFF_MILLIS = 100;
+    private static final long MAX_BACKOFF_MILLIS = 5_000;
+    // IN lists used when checking replayed ids against the table
+    private static final int ID_CHECK_BATCH = 1000;
+
+    @Autowired
+    private PurchaseService purchaseService;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${purchases.ingest.enabled:true}")
+    private boolean enabled;
+
+    @Value("${purchases.ingest.queue-capacity:10000}")
+    private int queueCapacity;
+
+    @Value("${purchases.ingest.batch-size:500}")
+    private int batchSize;
+
+    @Value("${purchases.ingest.spill-file:data/purchase-ingest.spill}")
+    private String spillFilePath;
+
+    @Value("${purchases.ingest.spill-fsync:true}")
+    private boolean spillFsync;
+
+    @Value("${purchases.ingest.spill-compact-bytes:16777216}")
+    private long spillCompactBytes;
+
+    @Value("${purchases.ingest.status-retention:100000}")
+    private int statusRetention;
+
+    @Value("${purchases.ingest.shutdown-timeout-seconds:30}")
+    private long shutdownTimeoutSeconds;
+
+    // Accepted and not yet committed or failed; the spill file holds at least these purchases
+    private final Map<UUID, PurchaseRow> pending = new ConcurrentHashMap<>();
+    private final BlockingQueue<PurchaseRow> queue = new LinkedBlockingQueue<>();
+    // Outcome of recently finished purchases, oldest evicted first
+    private final Map<UUID, PurchaseIngestStatusDTO> finished = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, false) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<UUID, PurchaseIngestStatusDTO> eldest) {
+                    return size() > statusRetention;
+                }
+            });
+    // Guards admission against pending, so the spill file is only emptied when nothing is pending
+    private final Object admission = new Object();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "purchase-ingest-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private IngestSpillFile spillFile;
+    private volatile boolean accepting;
+    private volatile boolean stopping;
+
+    /**
+     * Replay the spill file left by the previous run, then start accepting purchases
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            spillFile = new IngestSpillFile(Path.of(spillFilePath), objectMapper);
+            List<PurchaseRow> replayed = spillFile.readAll();
+            Set<UUID> committed = committedIds(replayed);
+            synchronized (admission) {
+                for (PurchaseRow row : replayed) {
+                    if (!committed.contains(row.id()) && pending.putIfAbsent(row.id(), row) == null) {
+                        queue.add(row);
+                    }
+                }
+                // Drop the purchases committed before the last stop
+                spillFile.rewrite(new ArrayList<>(pending.values()));
+                accepting = true;
+            }
+            if (!replayed.isEmpty()) {
+                logger.info("Replayed {} purchases from {} ({} already committed)",
+                        pending.size(), spillFilePath, replayed.size() - pending.size());
+            }
+        } catch (IOException e) {
+            logger.error("Cannot open ingestion spill file {}; asynchronous ingestion is off", spillFilePath, e);
+            return;
+        }
+        writer.submit(this::drain);
+    }
+
+    /**
+     * Stop accepting, commit what is queued within the shutdown timeout and leave the rest in the spill file
+     */
+    @PreDestroy
+    public void shutdown() {
+        synchronized (admission) {
+            accepting = false;
+        }
+        stopping = true;
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(shutdownTimeoutSeconds, TimeUnit.SECONDS)) {
+                writer.shutdownNow();
+                writer.awaitTermination(5, TimeUnit.SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!pending.isEmpty()) {
+            logger.warn("{} purchases not committed; kept in {} for the next start", pending.size(), spillFilePath);
+        }
+        if (spillFile != null) {
+            try {
+                spillFile.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close ingestion spill file {}", spillFilePath, e);
+            }
+        }
+    }
+
+    /**
+     * Validate a purchase, assign its id and queue it; it is durable (in the spill file) on return
+     *
+     * @return The purchase with its id and currency code
+     * @throws IllegalArgumentException if the purchase is invalid or asynchronous ingestion is disabled
+     * @throws IngestionUnavailableException if the queue is full, the service is stopping or the spill file fails
+     */
+    public PurchaseDTO submit(PurchaseDTO purchaseDTO) {
+        if (!enabled) {
+            throw new IllegalArgumentException("Asynchronous ingestion is disabled");
+        }
+        PurchaseRow row = purchaseService.prepareForIngestion(purchaseDTO);
+        long sequence;
+        synchronized (admission) {
+            if (!accepting) {
+                throw new IngestionUnavailableException("Asynchronous ingestion is not accepting purchases");
+            }
+            if (pending.size() >= queueCapacity) {
+                throw new IngestionUnavailableException("Ingestion queue is full (" + queueCapacity + " purchases)");
+            }
+            try {
+                sequence = spillFile.append(row);
+            } catch (IOException e) {
+                logger.error("Failed to append to ingestion spill file {}", spillFilePath, e);
+                // A partial line would swallow the next append on replay; rewrite the file without it
+                rewritePending();
+                throw new IngestionUnavailableException("Ingestion spill file is unavailable");
+            }
+            pending.put(row.id(), row);
+        }
+        if (spillFsync) {
+            try {
+                // Concurrent submits share one fsync
+                spillFile.sync(sequence);
+            } catch (IOException e) {
+                logger.error("Failed to sync ingestion spill file {}", spillFilePath, e);
+                synchronized (admission) {
+                    // The line is in the file: take it out before reporting the purchase as rejected,
+                    // or the next start would insert it anyway
+                    pending.remove(row.id());
+                    if (rewritePending()) {
+                        throw new IngestionUnavailableException("Ingestion spill file is unavailable");
+                    }
+                    // Cannot take it back, so it is accepted: committed by the writer or on replay
+                    pending.put(row.id(), row);
+                }
+            }
+        }
+        queue.add(row);
+        return purchaseService.convertToDTO(row);
+    }
+
+    /**
+     * State of an asynchronously submitted purchase
+     * Once its outcome has left the retention window, a committed purchase is still found in the table
+     *
+     * @param id Canonical UUID string; anything else finds nothing
+     */
+    public Optional<PurchaseIngestStatusDTO> getStatus(String id) {
+        Optional<UUID> purchaseId = TimeOrderedUuid.parse(id);
+        if (purchaseId.isEmpty()) {
+            return Optional.empty();
+        }
+        // Finished outcomes are recorded before leaving pending, so one of the two always has it
+        if (pending.containsKey(purchaseId.get())) {
+            return Optional.of(new PurchaseIngestStatusDTO(id, PurchaseIngestStatusDTO.QUEUED, null));
+        }
+        PurchaseIngestStatusDTO status = finished.get(purchaseId.get());
+        if (status != null) {
+            return Optional.of(status);
+        }
+        return purchaseRepository.existsById(purchaseId.get())
+                ? Optional.of(new PurchaseIngestStatusDTO(id, PurchaseIngestStatusDTO.COMMITTED, null))
+                : Optional.empty();
+    }
+
+    /**
+     * Writer loop: take what is queued (up to batch-size) and commit it as one transaction
+     * Batches grow by themselves under load, while the previous commit is running
+     */
+    private void drain() {
+        List<PurchaseRow> batch = new ArrayList<>(batchSize);
+        while (!Thread.currentThread().isInterrupted()) {
+            PurchaseRow first;
+            try {
+                first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (first == null) {
+                if (stopping) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+            queue.drainTo(batch, batchSize - 1);
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Commit a batch, retrying with backoff while the database is unreachable
+     * A batch rejected for another reason is retried one purchase at a time, so one bad row only fails itself
+     */
+    private void commit(List<PurchaseRow> batch) {
+        long backoff = INITIAL_BACKOFF_MILLIS;
+        while (true) {
+            try {
+                purchaseService.insertPurchases(batch);
+                finish(batch, PurchaseIngestStatusDTO.COMMITTED, null);
+                logger.debug("Ingestion committed {} purchases ({} pending)", batch.size(), pending.size());
+                return;
+            } catch (RuntimeException e) {
+                if (isTransient(e)) {
+                    logger.warn("Ingestion commit of {} purchases failed, retrying in {} ms: {}",
+                            batch.size(), backoff, e.getMessage());
+                    try {
+                        Thread.sleep(backoff);
+                    } catch (InterruptedException interrupted) {
+                        // Shutdown timed out; the batch stays in the spill file
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    backoff = Math.min(backoff * 2, MAX_BACKOFF_MILLIS);
+                } else if (batch.size() > 1) {
+                    logger.warn("Ingestion commit of {} purchases failed, committing them one by one: {}",
+                            batch.size(), e.getMessage());
+                    for (PurchaseRow row : batch) {
+                        if (Thread.currentThread().isInterrupted()) {
+                            return;
+                        }
+                        commit(List.of(row));
+                    }
+                    return;
+                } else {
+                    String error = NestedExceptionUtils.getMostSpecificCause(e).getMessage();
+                    logger.error("Ingested purchase {} could not be inserted: {}", batch.get(0).id(), error);
+                    finish(batch, PurchaseIngestStatusDTO.FAILED, error);
+                    return;
+                }
+            }
+        }
+    }
+
+    private void finish(List<PurchaseRow> batch, String state, String error) {
+        synchronized (admission) {
+            for (PurchaseRow row : batch) {
+                finished.put(row.id(), new PurchaseIngestStatusDTO(row.id().toString(), state, error));
+                pending.remove(row.id());
+            }
+            try {
+                if (pending.isEmpty()) {
+                    spillFile.rewrite(List.of());
+                } else if (spillFile.size() > spillCompactBytes) {
+                    spillFile.rewrite(new ArrayList<>(pending.values()));
+                }
+            } catch (IOException e) {
+                // Harmless: committed purchases left in the file are skipped on replay
+                logger.warn("Failed to compact ingestion spill file {}", spillFilePath, e);
+            }
+        }
+    }
+
+    /**
+     * Replace the spill file with exactly the pending purchases; caller holds the admission lock
+     *
+     * @return false if the file could not be rewritten
+     */
+    private boolean rewritePending() {
+        try {
+            spillFile.rewrite(new ArrayList<>(pending.values()));
+            return true;
+        } catch (IOException e) {
+            logger.error("Failed to rewrite ingestion spill file {}", spillFilePath, e);
+            return false;
+        }
+    }
+
+    private Set<UUID> committedIds(List<PurchaseRow> rows) {
+        List<UUID> ids = rows.stream().map(PurchaseRow::id).distinct().collect(Collectors.toList());
+        Set<UUID> committed = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += ID_CHECK_BATCH) {
+            committed.addAll(purchaseRepository.findExistingIds(ids.subList(from, Math.min(ids.size(), from + ID_CHECK_BATCH))));
+        }
+        return committed;
+    }
+
+    /**
+     * Failures worth retrying as they are: lost or refused connections, lock timeouts and deadlocks
+     */
+    private static boolean isTransient(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException || cause instanceof RecoverableDataAccessException
+                    || cause instanceof CannotCreateTransactionException || cause instanceof JDBCConnectionException
+                    || cause instanceof LockAcquisitionException || cause instanceof SQLTransientException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -1,22 +1,61 @@
 package com.wexapp.purchaseapp.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.wexapp.purchaseapp.dto.CountryCurrencyDTO;
+import com.wexapp.purchaseapp.dto.PurchaseBatchResultDTO;
 import com.wexapp.purchaseapp.dto.PurchaseDTO;
+import com.wexapp.purchaseapp.dto.PurchaseFilterDTO;
+import com.wexapp.purchaseapp.dto.PurchaseSummaryDTO;
 import com.wexapp.purchaseapp.dto.PurchaseWithConversionDTO;
 import com.wexapp.purchaseapp.entity.Purchase;
+import com.wexapp.purchaseapp.entity.PurchaseConversion;
+import com.wexapp.purchaseapp.entity.TimeOrderedUuid;
 import com.wexapp.purchaseapp.exception.ExchangeRateNotFoundException;
+import com.wexapp.purchaseapp.repository.PurchaseDateRange;
 import com.wexapp.purchaseapp.repository.PurchaseRepository;
+import com.wexapp.purchaseapp.repository.PurchaseRow;
+import com.wexapp.purchaseapp.repository.PurchaseSpecifications;
+import com.wexapp.purchaseapp.repository.PurchaseTotal;
+import com.wexapp.purchaseapp.repository.StoredConversion;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class PurchaseService {
@@ -29,6 +68,47 @@ public class PurchaseService {
     @Autowired
     private CurrencyService currencyService;
 
+    @Autowired
+    private PurchaseDictionary purchaseDictionary;
+
+    @Autowired
+    private PurchaseConversionStore conversionStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private Validator validator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${purchases.page.default-limit:100}")
+    private int defaultPageLimit;
+
+    @Value("${purchases.page.max-limit:1000}")
+    private int maxPageLimit;
+
+    @Value("${purchases.batch.max-size:5000}")
+    private int maxBatchSize;
+
+    // Rows per flush; matches the JDBC batch size so each flush sends full batches
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int insertBatchSize;
+
+    // Reads select projections in a read-only transaction (flush mode MANUAL, no dirty checking) that
+    // ends before rates are resolved, so no connection is held during Treasury calls
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
     @Transactional
     public PurchaseDTO createPurchase(PurchaseDTO purchaseDTO) {
         // Get currency code (country_currency_desc) for the country from Treasury API
@@ -50,63 +130,284 @@ public class PurchaseService {
         purchase.setCountry(purchaseDTO.getCountry());
         purchase.setCurrencyCode(purchaseDTO.getCurrencyCode());
 
+        // Dictionary ids are assigned up front, outside the flush that writes the purchase
+        purchaseDictionary.register(purchase.getCountry(), purchase.getCurrencyCode());
         Purchase saved = purchaseRepository.save(purchase);
-        return convertToDTO(saved);
+        return convertToDTO(PurchaseRow.of(saved));
     }
 
-    public List<PurchaseDTO> getAllPurchases() {
-        return purchaseRepository.findAllByOrderByDateDesc()
-                .stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+    /**
+     * Create many purchases in one transaction
+     * Countries are checked against one catalog snapshot; invalid purchases are reported and skipped,
+     * and the valid ones are inserted with JDBC batching (flushed every insertBatchSize rows)
+     *
+     * @return One result per purchase, in request order
+     * @throws IllegalArgumentException if the batch is larger than purchases.batch.max-size
+     */
+    @Transactional
+    public List<PurchaseBatchResultDTO> createPurchases(List<PurchaseDTO> purchaseDTOs) {
+        if (purchaseDTOs.size() > maxBatchSize) {
+            throw new IllegalArgumentException("A batch can hold at most " + maxBatchSize + " purchases");
+        }
+        Map<String, CountryCurrencyDTO> countryMap = currencyService.getCountryCurrencyMap();
+
+        List<PurchaseBatchResultDTO> results = new ArrayList<>(purchaseDTOs.size());
+        Map<Integer, Purchase> accepted = new LinkedHashMap<>();
+        Set<List<String>> countryCurrencies = new HashSet<>();
+        for (int index = 0; index < purchaseDTOs.size(); index++) {
+            PurchaseDTO purchaseDTO = purchaseDTOs.get(index);
+            Map<String, String> errors = validateForBatch(purchaseDTO, countryMap);
+            if (!errors.isEmpty()) {
+                results.add(PurchaseBatchResultDTO.rejected(index, errors));
+                continue;
+            }
+            Purchase purchase = new Purchase();
+            purchase.setDate(purchaseDTO.getDate());
+            purchase.setDescription(purchaseDTO.getDescription());
+            purchase.setPurchaseAmount(purchaseDTO.getPurchaseAmount());
+            purchase.setCountry(purchaseDTO.getCountry());
+            purchase.setCurrencyCode(countryMap.get(purchaseDTO.getCountry()).getCurrencyCode());
+            countryCurrencies.add(List.of(purchase.getCountry(), purchase.getCurrencyCode()));
+            accepted.put(index, purchase);
+            results.add(null);
+        }
+
+        // Dictionary ids are assigned up front, once per distinct country and currency
+        countryCurrencies.forEach(pair -> purchaseDictionary.register(pair.get(0), pair.get(1)));
+        int pending = 0;
+        for (Map.Entry<Integer, Purchase> entry : accepted.entrySet()) {
+            Purchase purchase = entry.getValue();
+            // persist, not save: ids are assigned in @PrePersist, so no merge SELECT per row
+            entityManager.persist(purchase);
+            results.set(entry.getKey(), new PurchaseBatchResultDTO(entry.getKey(), PurchaseBatchResultDTO.CREATED,
+                    purchase.getId().toString(), purchase.getCurrencyCode(), null));
+            if (++pending == insertBatchSize) {
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        logger.debug("Batch created {} of {} purchases", accepted.size(), purchaseDTOs.size());
+        return results;
     }
 
+    /**
+     * Validate a purchase for asynchronous ingestion and assign its id, without writing it
+     *
+     * @throws IllegalArgumentException listing the validation errors
+     */
+    public PurchaseRow prepareForIngestion(PurchaseDTO purchaseDTO) {
+        Map<String, CountryCurrencyDTO> countryMap = currencyService.getCountryCurrencyMap();
+        Map<String, String> errors = validateForBatch(purchaseDTO, countryMap);
+        if (!errors.isEmpty()) {
+            throw new IllegalArgumentException(String.join("; ", errors.values()));
+        }
+        return new PurchaseRow(TimeOrderedUuid.next(), purchaseDTO.getDate(), purchaseDTO.getDescription(),
+                purchaseDTO.getPurchaseAmount(), purchaseDTO.getCountry(),
+                countryMap.get(purchaseDTO.getCountry()).getCurrencyCode());
+    }
+
+    /**
+     * Insert already validated purchases, keeping their ids, in one transaction with JDBC batching
+     */
+    @Transactional
+    public void insertPurchases(Collection<PurchaseRow> rows) {
+        rows.stream()
+                .map(row -> List.of(row.country(), row.currencyCode()))
+                .distinct()
+                .forEach(pair -> purchaseDictionary.register(pair.get(0), pair.get(1)));
+        int pending = 0;
+        for (PurchaseRow row : rows) {
+            entityManager.persist(new Purchase(row.id(), row.date(), row.description(), row.purchaseAmount(),
+                    row.country(), row.currencyCode(), null));
+            if (++pending == insertBatchSize) {
+                entityManager.flush();
+                entityManager.clear();
+                pending = 0;
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    /**
+     * One page of the purchases matching the filter, in (date desc, id asc) order
+     *
+     * @param limit Page size; null means the default, larger values are capped at the maximum
+     * @param after Cursor from the previous page, or null for the first page
+     * @throws IllegalArgumentException for a limit below 1, a malformed cursor or an inverted range
+     */
+    public CursorPage<PurchaseDTO> getPurchasesPage(PurchaseFilterDTO filter, Integer limit, String after) {
+        int pageSize = pageSize(limit);
+        List<PurchaseRow> rows = readOnlyTransaction.execute(status -> findPage(filter, pageSize, after));
+        List<PurchaseRow> page = rows.subList(0, Math.min(pageSize, rows.size()));
+        return new CursorPage<>(page.stream().map(this::convertToDTO).collect(Collectors.toList()),
+                nextCursor(rows, pageSize));
+    }
+
+    /**
+     * @param id Canonical UUID string; anything else finds nothing
+     */
     public Optional<PurchaseDTO> getPurchaseById(String id) {
-        return purchaseRepository.findById(id)
+        return TimeOrderedUuid.parse(id)
+                .flatMap(purchaseId -> readOnlyTransaction.execute(status -> purchaseRepository
+                        .findRows(PurchaseSpecifications.withId(purchaseId), 1).stream().findFirst()))
                 .map(this::convertToDTO);
     }
 
-    public List<PurchaseWithConversionDTO> getPurchasesWithConversion(String targetCurrency) {
-        logger.debug("getPurchasesWithConversion called with currency: {}", targetCurrency);
-        List<Purchase> purchases = purchaseRepository.findAllByOrderByDateDesc();
-        logger.debug("Found {} purchases", purchases.size());
-        
-        return purchases.stream()
+    /**
+     * One page of converted purchases; rates are resolved only for the dates on the page
+     *
+     * @throws IllegalArgumentException for a limit below 1 or a malformed cursor
+     */
+    public CursorPage<PurchaseWithConversionDTO> getPurchasesWithConversionPage(String sourceCurrency, String targetCurrency,
+                                                                              PurchaseFilterDTO filter,
+                                                                              Integer limit, String after) {
+        int pageSize = pageSize(limit);
+        List<PurchaseRow> rows = readOnlyTransaction.execute(status -> findPage(filter, pageSize, after));
+        List<PurchaseRow> page = rows.subList(0, Math.min(pageSize, rows.size()));
+        return new CursorPage<>(convertPurchases(page, sourceCurrency, targetCurrency, true), nextCursor(rows, pageSize));
+    }
+
+    /**
+     * Write every purchase, converted, as NDJSON (one JSON object per line) in listing order
+     * Rows come from a forward-only database cursor and are converted and written one chunk at a
+     * time, so memory stays bounded by the chunk size whatever the table size
+     * The rate windows of the matching date range are loaded before the cursor is opened, so chunks
+     * are converted from memory while it holds a connection; Treasury is only called with the cursor
+     * open if the preload failed or a window's recent rates expire during a long export
+     */
+    public void exportPurchasesWithConversion(String sourceCurrency, String targetCurrency, PurchaseFilterDTO filter,
+                                              OutputStream out) throws IOException {
+        Optional<Specification<Purchase>> spec = specFor(filter);
+        if (spec.isEmpty()) {
+            out.flush();
+            return;
+        }
+        readOnlyTransaction.execute(status -> purchaseRepository.findDateRange(spec.get()))
+                .ifPresent(range -> preloadRates(sourceCurrency, targetCurrency, range));
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try {
+                    writeConverted(spec.get(), sourceCurrency, targetCurrency, out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Load both legs' rate history for [earliest - 6 months, latest]; failures are logged by CurrencyService
+     * and the chunks then resolve what they can
+     */
+    private void preloadRates(String sourceCurrency, String targetCurrency, PurchaseDateRange range) {
+        LocalDate from = range.earliest().minusMonths(6);
+        if (targetCurrency != null) {
+            currencyService.preloadRates(targetCurrency, from, range.latest());
+        }
+        if (sourceCurrency != null) {
+            currencyService.preloadRates(sourceCurrency, from, range.latest());
+        }
+    }
+
+    private void writeConverted(Specification<Purchase> spec, String sourceCurrency, String targetCurrency,
+                                OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(PurchaseWithConversionDTO.class);
+        OutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+        int exported = 0;
+        try (Stream<PurchaseRow> purchases = purchaseRepository.streamRows(spec)) {
+            Iterator<PurchaseRow> rows = purchases.iterator();
+            List<PurchaseRow> chunk = new ArrayList<>(PurchaseRepository.STREAM_FETCH_SIZE);
+            while (rows.hasNext()) {
+                chunk.add(rows.next());
+                if (chunk.size() == PurchaseRepository.STREAM_FETCH_SIZE || !rows.hasNext()) {
+                    // One in-memory rate lookup per chunk, for the dates it contains. Stored conversions are read but
+                    // new ones are not written: that needs a second connection while the cursor holds one
+                    for (PurchaseWithConversionDTO dto : convertPurchases(chunk, sourceCurrency, targetCurrency, false)) {
+                        buffered.write(writer.writeValueAsBytes(dto));
+                        buffered.write('\n');
+                    }
+                    buffered.flush();
+                    exported += chunk.size();
+                    chunk.clear();
+                }
+            }
+        }
+        buffered.flush();
+        logger.debug("Exported {} converted purchases", exported);
+    }
+
+    /**
+     * @param storeComputed Whether fresh conversions are written to the store (in their own transaction)
+     */
+    private List<PurchaseWithConversionDTO> convertPurchases(List<PurchaseRow> purchases, String sourceCurrency,
+                                                             String targetCurrency, boolean storeComputed) {
+        // Conversions from USD are deterministic once the rate is published; reuse the stored ones
+        boolean materialized = sourceCurrency == null && conversionStore.isEnabled()
+                && targetCurrency != null && !currencyService.isUsdCurrency(targetCurrency);
+        String storeCurrency = materialized ? targetCurrency.trim() : null;
+        Map<UUID, StoredConversion> stored = materialized
+                ? conversionStore.find(storeCurrency, purchases.stream().map(PurchaseRow::id).collect(Collectors.toList()))
+                : Map.of();
+
+        // Resolve every distinct date still to convert up front with one rate history query per currency
+        Set<LocalDate> purchaseDates = purchases.stream()
+                .filter(purchase -> !stored.containsKey(purchase.id()))
+                .map(PurchaseRow::date)
+                .collect(Collectors.toSet());
+        Map<LocalDate, ? extends CurrencyService.ConversionRate> rates;
+        try {
+            rates = purchaseDates.isEmpty()
+                ? Map.of()
+                : sourceCurrency == null
+                ? currencyService.getExchangeRates(targetCurrency, purchaseDates)
+                : currencyService.getCrossRates(sourceCurrency, targetCurrency, purchaseDates);
+        } catch (ExchangeRateNotFoundException e) {
+            logger.warn("ExchangeRateNotFoundException resolving rates for {}: {}", targetCurrency, e.getMessage());
+            // Conversion failed for every row; amounts and rates stay null
+            rates = Map.of();
+        }
+        Map<LocalDate, ? extends CurrencyService.ConversionRate> resolvedRates = rates;
+        List<PurchaseConversion> computed = new ArrayList<>();
+
+        List<PurchaseWithConversionDTO> converted = purchases.stream()
                 .map(purchase -> {
                     PurchaseWithConversionDTO dto = new PurchaseWithConversionDTO();
-                    dto.setId(purchase.getId());
-                    dto.setDate(purchase.getDate());
-                    dto.setDescription(purchase.getDescription());
-                    dto.setPurchaseAmount(purchase.getPurchaseAmount());
-                    dto.setCountry(purchase.getCountry());
-                    dto.setCurrencyCode(purchase.getCurrencyCode());
-                    
-                    try {
-                        logger.debug("Converting purchase {} from USD to {} for date {}", 
-                            purchase.getId(), targetCurrency, purchase.getDate());
-                        // Convert USD to target currency using purchase date
-                        BigDecimal convertedAmount = currencyService.convertUSDToCurrency(
-                                purchase.getPurchaseAmount(), 
-                                targetCurrency,
-                                purchase.getDate()  // Pass purchase date
-                        );
-                        dto.setConvertedAmount(convertedAmount);
-                        logger.debug("Converted amount: {}", convertedAmount);
-                        
-                        // Get exchange rate based on purchase date
-                        BigDecimal rate = currencyService.getExchangeRate(targetCurrency, purchase.getDate());
-                        dto.setExchangeRate(rate);
-                        logger.debug("Exchange rate: {}", rate);
-                    } catch (ExchangeRateNotFoundException e) {
-                        logger.warn("ExchangeRateNotFoundException for purchase {}: {}", 
-                            purchase.getId(), e.getMessage());
-                        // Set null values to indicate conversion failed
-                        dto.setConvertedAmount(null);
-                        dto.setExchangeRate(null);
-                        // Note: You may want to add an errorMessage field to PurchaseWithConversionDTO
-                    } catch (Exception e) {
-                        logger.error("Unexpected exception for purchase {}: {}", 
-                            purchase.getId(), e.getClass().getName(), e);
+                    dto.setId(purchase.id().toString());
+                    dto.setDate(purchase.date());
+                    dto.setDescription(purchase.description());
+                    dto.setPurchaseAmount(purchase.purchaseAmount());
+                    dto.setCountry(purchase.country());
+                    dto.setCurrencyCode(purchase.currencyCode());
+
+                    StoredConversion conversion = stored.get(purchase.id());
+                    if (conversion != null) {
+                        dto.setExchangeRate(conversion.exchangeRate());
+                        dto.setConvertedAmount(conversion.convertedAmount());
+                        dto.setRateStale(false);
+                        return dto;
+                    }
+
+                    // The same resolved rate drives both the rate and the converted amount
+                    CurrencyService.ConversionRate rate = resolvedRates.get(purchase.date());
+                    if (rate != null) {
+                        dto.setExchangeRate(rate.rate());
+                        dto.setConvertedAmount(currencyService.applyRate(purchase.purchaseAmount(), rate));
+                        dto.setRateStale(rate.stale());
+                        // A stale rate may still change; only fresh conversions are kept
+                        if (materialized && storeComputed && !rate.stale()
+                                && rate instanceof CurrencyService.ResolvedRate resolved) {
+                            computed.add(new PurchaseConversion(null, purchase.id(), storeCurrency, purchase.date(),
+                                    dto.getConvertedAmount(), resolved.rate(), resolved.recordDate(), null));
+                        }
+                    } else {
+                        logger.debug("No exchange rate for purchase {} on {}", purchase.id(), purchase.date());
+                        // Null values indicate conversion failed
                         dto.setConvertedAmount(null);
                         dto.setExchangeRate(null);
                     }
@@ -114,6 +415,93 @@ public class PurchaseService {
                     return dto;
                 })
                 .collect(Collectors.toList());
+        conversionStore.saveAll(storeCurrency, computed);
+        return converted;
+    }
+
+    /**
+     * Purchase totals grouped by month, country and/or currency code
+     * Sums are computed by the database (GROUP BY); with a target currency each group is converted
+     * once per exchange rate it spans, not once per purchase
+     *
+     * @param groupBy Dimensions among "month", "country" and "currency"; null or empty means all three
+     * @param targetCurrency Currency to convert totals into, or null for USD totals only
+     * @throws IllegalArgumentException for an unknown dimension or an inverted filter range
+     */
+    public List<PurchaseSummaryDTO> getSummary(PurchaseFilterDTO filter, List<String> groupBy, String targetCurrency) {
+        Set<String> dimensions = new LinkedHashSet<>();
+        for (String dimension : groupBy == null || groupBy.isEmpty() ? SUMMARY_DIMENSIONS : groupBy) {
+            String normalized = dimension.trim().toLowerCase(Locale.ROOT);
+            if (!SUMMARY_DIMENSIONS.contains(normalized)) {
+                throw new IllegalArgumentException("Unknown groupBy '" + dimension + "'. Use month, country or currency.");
+            }
+            dimensions.add(normalized);
+        }
+        boolean byMonth = dimensions.contains("month");
+        boolean byCountry = dimensions.contains("country");
+        boolean byCurrency = dimensions.contains("currency");
+        boolean convert = targetCurrency != null && !targetCurrency.isBlank();
+
+        Optional<Specification<Purchase>> spec = specFor(filter);
+        if (spec.isEmpty()) {
+            return List.of();
+        }
+        // Months are rolled up from per-day sums; conversion needs the days anyway to pick their rates
+        List<PurchaseTotal> totals = readOnlyTransaction.execute(status ->
+                purchaseRepository.sumByGroup(spec.get(), byMonth || convert, byCountry, byCurrency));
+
+        Map<LocalDate, CurrencyService.ResolvedRate> rates = Map.of();
+        if (convert) {
+            Set<LocalDate> dates = totals.stream().map(PurchaseTotal::date).collect(Collectors.toSet());
+            try {
+                rates = currencyService.getExchangeRates(targetCurrency, dates);
+            } catch (ExchangeRateNotFoundException e) {
+                logger.warn("ExchangeRateNotFoundException resolving summary rates for {}: {}", targetCurrency, e.getMessage());
+            }
+        }
+
+        Map<SummaryKey, SummaryGroup> groups = new HashMap<>();
+        for (PurchaseTotal total : totals) {
+            SummaryKey key = new SummaryKey(byMonth ? YearMonth.from(total.date()) : null,
+                    total.country(), total.currencyCode());
+            SummaryGroup group = groups.computeIfAbsent(key, k -> new SummaryGroup());
+            group.count += total.count();
+            group.amount = group.amount.add(total.amount());
+            if (convert) {
+                CurrencyService.ResolvedRate rate = rates.get(total.date());
+                if (rate == null) {
+                    group.missingRate = true;
+                } else {
+                    // Days sharing a Treasury record form one rate bucket
+                    group.amountByRate.merge(rate, total.amount(), BigDecimal::add);
+                }
+            }
+        }
+
+        return groups.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey(SummaryKey.ORDER))
+                .map(entry -> toSummaryDTO(entry.getKey(), entry.getValue(), convert))
+                .collect(Collectors.toList());
+    }
+
+    private PurchaseSummaryDTO toSummaryDTO(SummaryKey key, SummaryGroup group, boolean convert) {
+        PurchaseSummaryDTO dto = new PurchaseSummaryDTO();
+        dto.setMonth(key.month() != null ? key.month().toString() : null);
+        dto.setCountry(key.country());
+        dto.setCurrencyCode(key.currencyCode());
+        dto.setPurchaseCount(group.count);
+        dto.setTotalAmount(group.amount);
+        if (convert && !group.missingRate) {
+            BigDecimal converted = BigDecimal.ZERO;
+            boolean stale = false;
+            for (Map.Entry<CurrencyService.ResolvedRate, BigDecimal> bucket : group.amountByRate.entrySet()) {
+                converted = converted.add(currencyService.applyRate(bucket.getValue(), bucket.getKey()));
+                stale |= bucket.getKey().stale();
+            }
+            dto.setConvertedTotal(converted.setScale(2));
+            dto.setRateStale(stale);
+        }
+        return dto;
     }
 
     public List<CountryCurrencyDTO> getAvailableCountries() {
@@ -123,21 +511,127 @@ public class PurchaseService {
 
     @Transactional
     public boolean deletePurchase(String id) {
-        if (purchaseRepository.existsById(id)) {
-            purchaseRepository.deleteById(id);
+        Optional<UUID> purchaseId = TimeOrderedUuid.parse(id);
+        if (purchaseId.isPresent() && purchaseRepository.existsById(purchaseId.get())) {
+            conversionStore.deleteForPurchase(purchaseId.get());
+            purchaseRepository.deleteById(purchaseId.get());
             return true;
         }
         return false;
     }
 
-    private PurchaseDTO convertToDTO(Purchase purchase) {
+    /**
+     * Bean validation plus the checks POST /api/purchases leaves to the database, by field
+     */
+    private Map<String, String> validateForBatch(PurchaseDTO purchaseDTO, Map<String, CountryCurrencyDTO> countryMap) {
+        Map<String, String> errors = new LinkedHashMap<>();
+        if (purchaseDTO == null) {
+            errors.put("purchase", "Purchase is required");
+            return errors;
+        }
+        for (ConstraintViolation<PurchaseDTO> violation : validator.validate(purchaseDTO)) {
+            errors.put(violation.getPropertyPath().toString(), violation.getMessage());
+        }
+        if (purchaseDTO.getDate() == null) {
+            errors.put("date", "Date is required");
+        }
+        if (purchaseDTO.getPurchaseAmount() == null) {
+            errors.put("purchaseAmount", "Purchase amount is required");
+        }
+        if (purchaseDTO.getCountry() == null) {
+            errors.put("country", "Country is required");
+        } else if (!countryMap.containsKey(purchaseDTO.getCountry())) {
+            errors.put("country", "Country '" + purchaseDTO.getCountry() + "' is not supported. Please select a country from the available list.");
+        }
+        return errors;
+    }
+
+    private int pageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageLimit;
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException("limit must be at least 1");
+        }
+        return Math.min(limit, maxPageLimit);
+    }
+
+    /**
+     * Query for the filter, or empty when no purchase can match (e.g. a country never purchased in)
+     *
+     * @throws IllegalArgumentException for an inverted date or amount range
+     */
+    private Optional<Specification<Purchase>> specFor(PurchaseFilterDTO filter) {
+        if (filter.getStartDate() != null && filter.getEndDate() != null
+                && filter.getStartDate().isAfter(filter.getEndDate())) {
+            throw new IllegalArgumentException("startDate must not be after endDate");
+        }
+        if (filter.getMinAmount() != null && filter.getMaxAmount() != null
+                && filter.getMinAmount().compareTo(filter.getMaxAmount()) > 0) {
+            throw new IllegalArgumentException("minAmount must not be greater than maxAmount");
+        }
+        // Unknown names have no dictionary id; look them up without registering them
+        if (filter.getCountry() != null && purchaseDictionary.findCountryId(filter.getCountry()).isEmpty()) {
+            return Optional.empty();
+        }
+        if (filter.getCurrencyCode() != null && purchaseDictionary.findCurrencyId(filter.getCurrencyCode()).isEmpty()) {
+            return Optional.empty();
+        }
+        return Optional.of(PurchaseSpecifications.matching(filter));
+    }
+
+    /**
+     * Fetch one row more than the page size, to tell whether another page follows
+     * Seeks past the cursor's (date, id) key; no OFFSET and no count query
+     */
+    private List<PurchaseRow> findPage(PurchaseFilterDTO filter, int pageSize, String after) {
+        PurchaseCursor cursor = after == null || after.isBlank() ? null : PurchaseCursor.decode(after.trim());
+        Optional<Specification<Purchase>> spec = specFor(filter);
+        if (spec.isEmpty()) {
+            return List.of();
+        }
+        Specification<Purchase> pageSpec = spec.get();
+        if (cursor != null) {
+            pageSpec = pageSpec.and(PurchaseSpecifications.after(cursor.date(), cursor.id()));
+        }
+        return purchaseRepository.findRows(pageSpec, pageSize + 1);
+    }
+
+    private String nextCursor(List<PurchaseRow> rows, int pageSize) {
+        return rows.size() > pageSize ? PurchaseCursor.of(rows.get(pageSize - 1)).encode() : null;
+    }
+
+    private static final List<String> SUMMARY_DIMENSIONS = List.of("month", "country", "currency");
+
+    private record SummaryKey(YearMonth month, String country, String currencyCode) {
+        // Newest month first, then country and currency
+        static final Comparator<SummaryKey> ORDER = Comparator
+                .comparing(SummaryKey::month, Comparator.nullsLast(Comparator.<YearMonth>reverseOrder()))
+                .thenComparing(SummaryKey::country, Comparator.nullsLast(Comparator.<String>naturalOrder()))
+                .thenComparing(SummaryKey::currencyCode, Comparator.nullsLast(Comparator.<String>naturalOrder()));
+    }
+
+    private static final class SummaryGroup {
+        long count;
+        BigDecimal amount = BigDecimal.ZERO;
+        final Map<CurrencyService.ResolvedRate, BigDecimal> amountByRate = new LinkedHashMap<>();
+        boolean missingRate;
+    }
+
+    /**
+     * A page of results and the cursor for the next one (null on the last page)
+     */
+    public record CursorPage<T>(List<T> items, String nextCursor) {
+    }
+
+    PurchaseDTO convertToDTO(PurchaseRow purchase) {
         PurchaseDTO dto = new PurchaseDTO();
-        dto.setId(purchase.getId());
-        dto.setDate(purchase.getDate());
-        dto.setDescription(purchase.getDescription());
-        dto.setPurchaseAmount(purchase.getPurchaseAmount());
-        dto.setCountry(purchase.getCountry());
-        dto.setCurrencyCode(purchase.getCurrencyCode());
+        dto.setId(purchase.id().toString());
+        dto.setDate(purchase.date());
+        dto.setDescription(purchase.description());
+        dto.setPurchaseAmount(purchase.purchaseAmount());
+        dto.setCountry(purchase.country());
+        dto.setCurrencyCode(purchase.currencyCode());
         return dto;
     }
 }
@@ -0,0 +1,262 @@
+package com.wexapp.purchaseapp.service;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * Read-only, memory-mapped binary snapshot of the exchange rate history
+ * Queried in place: only the currency dictionary is decoded at open, record dates and rates stay
+ * in the mapped file (and the OS page cache, shared by every JVM on the host that maps it)
+ *
+ * Layout (big-endian), version 2:
+ * <pre>
+ * header      magic "WXRS", version, currency count, record count, covered-from epoch day,
+ *             covered-to epoch day, created-at epoch millis
+ * dictionary  per currency: name length (short), UTF-8 name, first record index, record count
+ * days        int[record count]   epoch days, ascending within each currency
+ * rates       long[record count]  unscaled rates
+ * scales      byte[record count]  decimal scale of each rate
+ * </pre>
+ * Each rate keeps its own scale, so the snapshot answers exactly the rate that was written, the same
+ * as the live index; version 1 files rounded every rate to 6 decimals and are not read
+ */
+public final class RateSnapshot {
+
+    private static final int MAGIC = 0x57585253; // "WXRS"
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 6 * Integer.BYTES + Long.BYTES;
+
+    private final Map<String, int[]> ranges;
+    private final IntBuffer days;
+    private final LongBuffer rates;
+    private final ByteBuffer scales;
+    private final LocalDate coveredFrom;
+    private final LocalDate coveredTo;
+    private final Instant createdAt;
+
+    private RateSnapshot(Map<String, int[]> ranges, IntBuffer days, LongBuffer rates, ByteBuffer scales,
+                         LocalDate coveredFrom, LocalDate coveredTo, Instant createdAt) {
+        this.ranges = ranges;
+        this.days = days;
+        this.rates = rates;
+        this.scales = scales;
+        this.coveredFrom = coveredFrom;
+        this.coveredTo = coveredTo;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Map a snapshot file read-only
+     *
+     * @throws IOException if the file cannot be read or is not a version 2 snapshot
+     */
+    public static RateSnapshot open(Path path) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        buffer.order(ByteOrder.BIG_ENDIAN);
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IOException("Not an exchange rate snapshot: " + path);
+            }
+            int version = buffer.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported exchange rate snapshot version " + version + ": " + path);
+            }
+            int currencyCount = buffer.getInt();
+            int recordCount = buffer.getInt();
+            LocalDate coveredFrom = LocalDate.ofEpochDay(buffer.getInt());
+            LocalDate coveredTo = LocalDate.ofEpochDay(buffer.getInt());
+            Instant createdAt = Instant.ofEpochMilli(buffer.getLong());
+
+            Map<String, int[]> ranges = new HashMap<>(currencyCount * 2);
+            for (int i = 0; i < currencyCount; i++) {
+                byte[] name = new byte[buffer.getShort()];
+                buffer.get(name);
+                int first = buffer.getInt();
+                int count = buffer.getInt();
+                if (first < 0 || count < 0 || first + count > recordCount) {
+                    throw new IOException("Corrupt exchange rate snapshot dictionary: " + path);
+                }
+                ranges.put(new String(name, StandardCharsets.UTF_8), new int[]{first, count});
+            }
+
+            int daysOffset = align(buffer.position());
+            int ratesOffset = align(daysOffset + recordCount * Integer.BYTES);
+            int scalesOffset = ratesOffset + recordCount * Long.BYTES;
+            if ((long) scalesOffset + recordCount > buffer.capacity()) {
+                throw new IOException("Truncated exchange rate snapshot: " + path);
+            }
+            IntBuffer days = buffer.slice(daysOffset, recordCount * Integer.BYTES).order(ByteOrder.BIG_ENDIAN).asIntBuffer();
+            LongBuffer rates = buffer.slice(ratesOffset, recordCount * Long.BYTES).order(ByteOrder.BIG_ENDIAN).asLongBuffer();
+            ByteBuffer scales = buffer.slice(scalesOffset, recordCount);
+            return new RateSnapshot(ranges, days, rates, scales, coveredFrom, coveredTo, createdAt);
+        } catch (RuntimeException e) {
+            throw new IOException("Corrupt exchange rate snapshot: " + path, e);
+        }
+    }
+
+    /**
+     * Write a snapshot of {@code rates} covering [from, to] to {@code path}
+     * Written to a temporary file first and moved into place, so running JVMs that still map the
+     * previous file are not affected
+     *
+     * @throws IllegalArgumentException if a rate needs more than 18 significant digits
+     */
+    public static void write(Path path, Collection<TreasuryClient.TreasuryRate> rates,
+                             LocalDate from, LocalDate to) throws IOException {
+        // Group by currency, sorted by record date; a repeated (currency, date) keeps the first rate
+        SortedMap<String, TreeMap<LocalDate, BigDecimal>> byCurrency = new TreeMap<>();
+        for (TreasuryClient.TreasuryRate rate : rates) {
+            byCurrency.computeIfAbsent(rate.currencyCode(), key -> new TreeMap<>())
+                    .putIfAbsent(rate.recordDate(), rate.exchangeRate());
+        }
+        int recordCount = byCurrency.values().stream().mapToInt(Map::size).sum();
+
+        List<byte[]> names = new ArrayList<>();
+        int dictionaryBytes = 0;
+        for (String currency : byCurrency.keySet()) {
+            byte[] name = currency.getBytes(StandardCharsets.UTF_8);
+            names.add(name);
+            dictionaryBytes += Short.BYTES + name.length + 2 * Integer.BYTES;
+        }
+        int daysOffset = align(HEADER_BYTES + dictionaryBytes);
+        int ratesOffset = align(daysOffset + recordCount * Integer.BYTES);
+        int scalesOffset = ratesOffset + recordCount * Long.BYTES;
+        ByteBuffer buffer = ByteBuffer.allocate(scalesOffset + recordCount).order(ByteOrder.BIG_ENDIAN);
+
+        buffer.putInt(MAGIC)
+                .putInt(VERSION)
+                .putInt(byCurrency.size())
+                .putInt(recordCount)
+                .putInt((int) from.toEpochDay())
+                .putInt((int) to.toEpochDay())
+                .putLong(System.currentTimeMillis());
+        int index = 0;
+        int nameIndex = 0;
+        for (Map.Entry<String, TreeMap<LocalDate, BigDecimal>> currency : byCurrency.entrySet()) {
+            byte[] name = names.get(nameIndex++);
+            buffer.putShort((short) name.length).put(name).putInt(index).putInt(currency.getValue().size());
+            for (Map.Entry<LocalDate, BigDecimal> record : currency.getValue().entrySet()) {
+                BigDecimal rate = exact(currency.getKey(), record.getKey(), record.getValue());
+                buffer.putInt(daysOffset + index * Integer.BYTES, (int) record.getKey().toEpochDay());
+                buffer.putLong(ratesOffset + index * Long.BYTES, rate.unscaledValue().longValue());
+                buffer.put(scalesOffset + index, (byte) rate.scale());
+                index++;
+            }
+        }
+
+        Path target = path.toAbsolutePath();
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                buffer.rewind();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Find the latest rate recorded on or before {@code date} and not before {@code notBefore}
+     * Binary search over the currency's slice of the mapped day array
+     */
+    public Optional<ExchangeRateIndex.RateEntry> floor(String currencyCode, LocalDate date, LocalDate notBefore) {
+        int[] range = ranges.get(currencyCode);
+        if (range == null || range[1] == 0) {
+            return Optional.empty();
+        }
+        int target = (int) date.toEpochDay();
+        int low = range[0];
+        int high = range[0] + range[1] - 1;
+        int found = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (days.get(mid) <= target) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        if (found < 0) {
+            return Optional.empty();
+        }
+        LocalDate recordDate = LocalDate.ofEpochDay(days.get(found));
+        if (recordDate.isBefore(notBefore)) {
+            return Optional.empty();
+        }
+        long unscaled = rates.get(found);
+        int rateScale = scales.get(found);
+        long scaled = rateScale <= FixedPointRates.RATE_SCALE
+            ? FixedPointRates.rescale(unscaled, rateScale)
+            : FixedPointRates.NOT_FIXED;
+        if (scaled == FixedPointRates.NOT_FIXED) {
+            return Optional.of(ExchangeRateIndex.RateEntry.of(recordDate, BigDecimal.valueOf(unscaled, rateScale)));
+        }
+        return Optional.of(new ExchangeRateIndex.RateEntry(recordDate, scaled, null));
+    }
+
+    public int size() {
+        return days.capacity();
+    }
+
+    public int currencyCount() {
+        return ranges.size();
+    }
+
+    public LocalDate coveredFrom() {
+        return coveredFrom;
+    }
+
+    public LocalDate coveredTo() {
+        return coveredTo;
+    }
+
+    public Instant createdAt() {
+        return createdAt;
+    }
+
+    /**
+     * The rate without trailing zeros, as an unscaled long and a non-negative byte scale
+     */
+    private static BigDecimal exact(String currency, LocalDate recordDate, BigDecimal rate) {
+        BigDecimal stripped = rate.stripTrailingZeros();
+        if (stripped.scale() < 0) {
+            stripped = stripped.setScale(0);
+        }
+        if (stripped.scale() > Byte.MAX_VALUE || stripped.unscaledValue().bitLength() >= Long.SIZE) {
+            throw new IllegalArgumentException("Rate " + rate.toPlainString() + " for " + currency + " on "
+                + recordDate + " is too precise for an exchange rate snapshot");
+        }
+        return stripped;
+    }
+
+    private static int align(int offset) {
+        return (offset + Long.BYTES - 1) & -Long.BYTES;
+    }
+}
@@ -0,0 +1,142 @@
+package com.wexapp.purchaseapp.service;
+
+import com.wexapp.purchaseapp.dto.RateSnapshotDTO;
+import com.wexapp.purchaseapp.entity.ExchangeRate;
+import com.wexapp.purchaseapp.repository.ExchangeRateRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Loads the binary rate snapshot at startup and rebuilds it on request
+ * With a snapshot on disk, conversions are served as soon as the context starts, with no
+ * Treasury or database round trip; the sync job then only adds what is newer than the snapshot
+ */
+@Service
+public class RateSnapshotService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateSnapshotService.class);
+
+    public static final String SOURCE_DATABASE = "db";
+    public static final String SOURCE_TREASURY = "treasury";
+
+    @Autowired
+    private CurrencyService currencyService;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private TreasuryClient treasuryClient;
+
+    @Value("${currency.rates.snapshot.enabled:true}")
+    private boolean enabled;
+
+    @Value("${currency.rates.snapshot.path:data/exchange-rates.snapshot}")
+    private String snapshotPath;
+
+    @Value("${currency.rates.sync.history-start:2001-01-01}")
+    private String historyStart;
+
+    private volatile RateSnapshot current;
+
+    @PostConstruct
+    public void loadSnapshot() {
+        if (!enabled) {
+            return;
+        }
+        Path path = Paths.get(snapshotPath);
+        if (!Files.isRegularFile(path)) {
+            logger.info("No exchange rate snapshot at {}", path.toAbsolutePath());
+            return;
+        }
+        try {
+            attach(RateSnapshot.open(path));
+        } catch (IOException e) {
+            // A bad snapshot only costs the fast start; rates still come from the DB and Treasury
+            logger.warn("Ignoring exchange rate snapshot {}: {}", path.toAbsolutePath(), e.getMessage());
+        }
+    }
+
+    /**
+     * The snapshot currently attached to CurrencyService, if any
+     */
+    public Optional<RateSnapshot> current() {
+        return Optional.ofNullable(current);
+    }
+
+    /**
+     * Rebuild the snapshot file from the exchange_rates table or straight from Treasury,
+     * then map the new file and attach it
+     *
+     * @param source "db" or "treasury"
+     * @throws IllegalArgumentException for an unknown source, or a database source with no stored rates
+     */
+    public synchronized RateSnapshotDTO rebuild(String source) {
+        LocalDate start = LocalDate.parse(historyStart);
+        List<TreasuryClient.TreasuryRate> rates;
+        LocalDate coveredTo;
+        if (SOURCE_DATABASE.equalsIgnoreCase(source)) {
+            List<ExchangeRate> stored = exchangeRateRepository.findAllByOrderByRecordDateAsc();
+            if (stored.isEmpty()) {
+                throw new IllegalArgumentException("No stored exchange rates to build a snapshot from");
+            }
+            rates = stored.stream()
+                    .map(rate -> new TreasuryClient.TreasuryRate(rate.getCurrencyCode(), rate.getRecordDate(), rate.getExchangeRate()))
+                    .collect(Collectors.toList());
+            // Only vouch for dates the table is known to hold
+            coveredTo = stored.get(stored.size() - 1).getRecordDate();
+            LocalDate earliest = stored.get(0).getRecordDate();
+            start = earliest.isBefore(start) ? earliest : start;
+        } else if (SOURCE_TREASURY.equalsIgnoreCase(source)) {
+            rates = treasuryClient.fetchRatesAfter(null, start);
+            coveredTo = LocalDate.now();
+        } else {
+            throw new IllegalArgumentException("Unknown snapshot source '" + source + "'. Use 'db' or 'treasury'.");
+        }
+
+        Path path = Paths.get(snapshotPath);
+        try {
+            RateSnapshot.write(path, rates, start, coveredTo);
+            attach(RateSnapshot.open(path));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write exchange rate snapshot " + path.toAbsolutePath(), e);
+        }
+        logger.info("Rebuilt exchange rate snapshot {} from {} ({} rates)", path.toAbsolutePath(), source, current.size());
+        return toDTO(current);
+    }
+
+    public RateSnapshotDTO describe() {
+        RateSnapshot snapshot = current;
+        return snapshot != null ? toDTO(snapshot) : null;
+    }
+
+    private void attach(RateSnapshot snapshot) {
+        currencyService.attachSnapshot(snapshot);
+        current = snapshot;
+    }
+
+    private RateSnapshotDTO toDTO(RateSnapshot snapshot) {
+        RateSnapshotDTO dto = new RateSnapshotDTO();
+        dto.setPath(Paths.get(snapshotPath).toAbsolutePath().toString());
+        dto.setRates(snapshot.size());
+        dto.setCurrencies(snapshot.currencyCount());
+        dto.setCoveredFrom(snapshot.coveredFrom());
+        dto.setCoveredTo(snapshot.coveredTo());
+        dto.setCreatedAt(snapshot.createdAt());
+        return dto;
+    }
+}
@@ -0,0 +1,58 @@
+package com.wexapp.purchaseapp.service;
+
+/**
+ * Canonical strings for text decoded from char buffers
+ * Treasury pages repeat the same few hundred country and currency names on every row; a value
+ * seen before is returned without allocating a new String. Bounded, so unexpected input can
+ * only cost extra allocations, never unbounded memory
+ */
+final class TextInterner {
+
+    private final String[] table;
+    private final int mask;
+    private final int maxEntries;
+    private int size;
+
+    /**
+     * @param capacity table size, rounded up to a power of two; at most half of it is filled
+     */
+    TextInterner(int capacity) {
+        int tableSize = Integer.highestOneBit(Math.max(16, capacity - 1)) << 1;
+        this.table = new String[tableSize];
+        this.mask = tableSize - 1;
+        this.maxEntries = tableSize / 2;
+    }
+
+    synchronized String intern(char[] chars, int offset, int length) {
+        int hash = 0;
+        for (int i = 0; i < length; i++) {
+            hash = 31 * hash + chars[offset + i];
+        }
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        String candidate;
+        while ((candidate = table[slot]) != null) {
+            if (matches(candidate, chars, offset, length)) {
+                return candidate;
+            }
+            slot = (slot + 1) & mask;
+        }
+        String value = new String(chars, offset, length);
+        if (size < maxEntries) {
+            table[slot] = value;
+            size++;
+        }
+        return value;
+    }
+
+    private static boolean matches(String candidate, char[] chars, int offset, int length) {
+        if (candidate.length() != length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (candidate.charAt(i) != chars[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,319 @@
+package com.wexapp.purchaseapp.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import com.wexapp.purchaseapp.exception.TreasuryUnavailableException;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * HTTP access to the U.S. Treasury Fiscal Data "rates of exchange" dataset
+ * Shared by the on-demand rate lookups, the country/currency catalog and the rate sync job
+ * Every request is bounded by connect/response/call timeouts and goes through a circuit breaker,
+ * so a slow or failing Treasury API fails fast instead of holding request threads
+ * Pages are decoded as a token stream ({@link TreasuryPageDecoder}) instead of POJO lists: repeated
+ * country/currency names are interned and rows already known to the caller are skipped unallocated
+ */
+@Component
+public class TreasuryClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(TreasuryClient.class);
+
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    @Value("${currency.api.url}")
+    private String currencyApiUrl;
+
+    @Value("${currency.api.rates-page-size:1000}")
+    private int ratesPageSize;
+
+    private final WebClient webClient;
+    private final TextInterner names = new TextInterner(4096);
+    private final Duration callTimeout;
+    private final CircuitBreaker circuitBreaker;
+
+    public TreasuryClient(@Qualifier("treasuryWebClient") WebClient webClient,
+                          @Value("${currency.api.call-timeout-ms:15000}") long callTimeoutMs,
+                          @Value("${currency.api.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                          @Value("${currency.api.circuit-breaker.open-seconds:30}") long openSeconds) {
+        // Pooling, compression, HTTP/2 and connect/response timeouts come from TreasuryHttpClientConfig
+        this.webClient = webClient;
+        this.callTimeout = Duration.ofMillis(callTimeoutMs);
+        this.circuitBreaker = new CircuitBreaker("treasury", failureThreshold, Duration.ofSeconds(openSeconds));
+    }
+
+    public CircuitBreaker.Snapshot circuitState() {
+        return circuitBreaker.snapshot();
+    }
+
+    /**
+     * Fetch all exchange rate records for one currency within a date range
+     * Walks every page of the result, so a whole window costs one paginated query
+     */
+    public List<TreasuryRate> fetchRateHistory(String currencyCode, LocalDate from, LocalDate to) {
+        // Format: country_currency_desc:in:(Canada-Dollar),record_date:gte:2025-01-01,record_date:lte:2025-12-03
+        String filter = String.format("country_currency_desc:in:(%s),record_date:gte:%s,record_date:lte:%s",
+            currencyCode, from.format(DATE_FORMATTER), to.format(DATE_FORMATTER));
+        logger.debug("Fetching exchange rate history for currency: {}", currencyCode);
+        return fetchRates(filter);
+    }
+
+    /**
+     * Fetch exchange rate records of every currency published after a record date
+     * Used by the incremental sync; {@code null} fetches the full history from {@code historyStart}
+     */
+    public List<TreasuryRate> fetchRatesAfter(LocalDate after, LocalDate historyStart) {
+        String filter = after != null
+            ? "record_date:gt:" + after.format(DATE_FORMATTER)
+            : "record_date:gte:" + historyStart.format(DATE_FORMATTER);
+        logger.debug("Fetching exchange rates for all currencies");
+        return fetchRates(filter);
+    }
+
+    /**
+     * Fetch one page of the country/currency list, newest records first, leaving out pairs already in {@code known}
+     * and repeats within the page; {@link CurrencyPage#rows()} still counts every record
+     */
+    Mono<CurrencyPage> currencyPage(int pageNumber, int pageSize, CountryCurrencyPairs known) {
+        String pageUrl = UriComponentsBuilder.fromHttpUrl(currencyApiUrl)
+                .queryParam("sort", "-record_date")
+                .queryParam("format", "json")
+                .queryParam("page[number]", String.valueOf(pageNumber))
+                .queryParam("page[size]", String.valueOf(pageSize))
+                .queryParam("fields", "country,country_currency_desc,record_date")
+                .toUriString();
+
+        logger.debug("Fetching page {}: {}", pageNumber, pageUrl);
+
+        return Mono.defer(() -> {
+            CurrencyRowCollector rows = new CurrencyRowCollector(known);
+            TreasuryPageDecoder decoder = new TreasuryPageDecoder(rows);
+            return guarded(decode(pageUrl, decoder, () ->
+                new CurrencyPage(rows.entries, decoder.rowCount(), decoder.totalPages(), decoder.totalCount())));
+        });
+    }
+
+    /**
+     * Stream a response body through a page decoder and build the result once the body is complete
+     */
+    private <T> Mono<T> decode(String pageUrl, TreasuryPageDecoder decoder, Supplier<T> result) {
+        return webClient.get()
+                .uri(pageUrl)
+                .retrieve()
+                .bodyToFlux(DataBuffer.class)
+                .doOnNext(buffer -> {
+                    try {
+                        decoder.feed(buffer);
+                    } finally {
+                        DataBufferUtils.release(buffer);
+                    }
+                })
+                .then(Mono.fromSupplier(() -> {
+                    decoder.endOfInput();
+                    return result.get();
+                }));
+    }
+
+    /**
+     * Run one Treasury request through the circuit breaker with the call timeout applied
+     * Rejected immediately with {@link TreasuryUnavailableException} while the circuit is open
+     */
+    private <T> Mono<T> guarded(Mono<T> request) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquire()) {
+                return Mono.error(new TreasuryUnavailableException(
+                    "Treasury API circuit is open; skipping call"));
+            }
+            return request
+                    .timeout(callTimeout)
+                    .doOnSuccess(result -> circuitBreaker.onSuccess())
+                    .doOnError(this::recordFailure)
+                    .doOnCancel(circuitBreaker::onCancel);
+        });
+    }
+
+    private void recordFailure(Throwable error) {
+        if (isUnavailable(error)) {
+            circuitBreaker.onFailure(error);
+        } else {
+            circuitBreaker.onSuccess();
+        }
+    }
+
+    /**
+     * Whether an error means Treasury is unavailable (counted by the circuit breaker)
+     * A 4xx means Treasury answered and rejected the request, except 408 and 429: a timed-out or
+     * throttled request should make the breaker back off like an outage does
+     */
+    static boolean isUnavailable(Throwable error) {
+        if (error instanceof WebClientResponseException responseException) {
+            HttpStatusCode status = responseException.getStatusCode();
+            return !status.is4xxClientError()
+                    || status.value() == HttpStatus.REQUEST_TIMEOUT.value()
+                    || status.value() == HttpStatus.TOO_MANY_REQUESTS.value();
+        }
+        return true;
+    }
+
+    private List<TreasuryRate> fetchRates(String filter) {
+        logger.debug("Filter: {}", filter);
+
+        List<TreasuryRate> rates = new ArrayList<>();
+        int pageNumber = 1;
+        int totalPages = 1;
+        do {
+            String pageUrl = UriComponentsBuilder.fromHttpUrl(currencyApiUrl)
+                    .queryParam("fields", "country_currency_desc,exchange_rate,record_date")
+                    .queryParam("filter", filter)
+                    .queryParam("sort", "-record_date")
+                    .queryParam("page[number]", String.valueOf(pageNumber))
+                    .queryParam("page[size]", String.valueOf(ratesPageSize))
+                    .toUriString();
+
+            logger.debug("Fetching rate page {}: {}", pageNumber, pageUrl);
+
+            // Rows are appended straight into the result list as they are decoded
+            TreasuryPageDecoder decoder = new TreasuryPageDecoder(new RateRowCollector(rates));
+            guarded(decode(pageUrl, decoder, () -> Boolean.TRUE)).block();
+
+            if (decoder.rowCount() == 0) {
+                break;
+            }
+            if (decoder.totalPages() != null) {
+                totalPages = decoder.totalPages();
+            }
+            pageNumber++;
+        } while (pageNumber <= totalPages);
+
+        logger.debug("Fetched {} rate records over {} page(s)", rates.size(), pageNumber - 1);
+        return rates;
+    }
+
+    /**
+     * Parse a yyyy-MM-dd record date straight from the decoder's char buffer
+     */
+    static LocalDate parseDate(char[] text, int offset, int length) {
+        if (length == 10 && text[offset + 4] == '-' && text[offset + 7] == '-') {
+            int year = digits(text, offset, 4);
+            int month = digits(text, offset + 5, 2);
+            int day = digits(text, offset + 8, 2);
+            if (year >= 0 && month >= 0 && day >= 0) {
+                return LocalDate.of(year, month, day);
+            }
+        }
+        return LocalDate.parse(new String(text, offset, length), DATE_FORMATTER);
+    }
+
+    private static int digits(char[] text, int offset, int count) {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            char c = text[i];
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    /**
+     * Collects new (country, currency) pairs of a catalog page
+     */
+    private class CurrencyRowCollector implements TreasuryPageDecoder.RowHandler {
+        private final CountryCurrencyPairs known;
+        private final CountryCurrencyPairs seenOnPage = new CountryCurrencyPairs();
+        private final List<CountryCurrency> entries = new ArrayList<>();
+        private String country;
+        private String currencyDesc;
+
+        CurrencyRowCollector(CountryCurrencyPairs known) {
+            this.known = known;
+        }
+
+        @Override
+        public void field(String name, char[] text, int offset, int length) {
+            if ("country".equals(name)) {
+                country = names.intern(text, offset, length);
+            } else if ("country_currency_desc".equals(name)) {
+                currencyDesc = names.intern(text, offset, length);
+            }
+        }
+
+        @Override
+        public void endRow() {
+            if (country != null && currencyDesc != null && !known.contains(country, currencyDesc)
+                    && seenOnPage.add(country, currencyDesc)) {
+                entries.add(new CountryCurrency(country, currencyDesc));
+            }
+            country = null;
+            currencyDesc = null;
+        }
+    }
+
+    /**
+     * Turns rate rows into {@link TreasuryRate}s, skipping rows with missing fields
+     */
+    private class RateRowCollector implements TreasuryPageDecoder.RowHandler {
+        private final List<TreasuryRate> rates;
+        private String currencyDesc;
+        private BigDecimal exchangeRate;
+        private LocalDate recordDate;
+
+        RateRowCollector(List<TreasuryRate> rates) {
+            this.rates = rates;
+        }
+
+        @Override
+        public void field(String name, char[] text, int offset, int length) {
+            if ("country_currency_desc".equals(name)) {
+                currencyDesc = names.intern(text, offset, length);
+            } else if ("exchange_rate".equals(name)) {
+                exchangeRate = length > 0 ? new BigDecimal(text, offset, length) : null;
+            } else if ("record_date".equals(name)) {
+                recordDate = parseDate(text, offset, length);
+            }
+        }
+
+        @Override
+        public void endRow() {
+            if (currencyDesc != null && exchangeRate != null && recordDate != null) {
+                rates.add(new TreasuryRate(currencyDesc, recordDate, exchangeRate));
+            }
+            currencyDesc = null;
+            exchangeRate = null;
+            recordDate = null;
+        }
+    }
+
+    /**
+     * One exchange rate record: units of the currency per 1 USD as of the record date
+     */
+    public record TreasuryRate(String currencyCode, LocalDate recordDate, BigDecimal exchangeRate) {
+    }
+
+    public record CountryCurrency(String country, String currencyDesc) {
+    }
+
+    /**
+     * One catalog page: the new pairs it contained, and how many records it had in total
+     */
+    public record CurrencyPage(List<CountryCurrency> entries, int rows, Integer totalPages, Integer totalCount) {
+    }
+}
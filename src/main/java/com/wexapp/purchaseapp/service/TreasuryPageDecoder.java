@@ -0,0 +1,165 @@
+package com.wexapp.purchaseapp.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Incremental token-level decoder for one Treasury API page
+ * ({"data": [{...}, ...], "meta": {...}, "links": {...}})
+ * Body chunks are parsed as they arrive with Jackson's non-blocking parser; each row field is handed
+ * to a {@link RowHandler} as a slice of the parser's char buffer, so the handler decides what (if
+ * anything) to allocate for it, and no page-sized object tree is ever built
+ */
+final class TreasuryPageDecoder {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    /**
+     * Receives the fields of each row of the "data" array
+     * The char slice is only valid during the call
+     */
+    interface RowHandler {
+        void field(String name, char[] text, int offset, int length);
+
+        void endRow();
+    }
+
+    private enum Section { NONE, DATA, META, OTHER }
+
+    private final RowHandler handler;
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+
+    private int depth;
+    private Section section = Section.NONE;
+    private String topField;
+    private String innerField;
+    private int rowCount;
+    private Integer totalPages;
+    private Integer totalCount;
+
+    TreasuryPageDecoder(RowHandler handler) {
+        this.handler = handler;
+        try {
+            this.parser = JSON_FACTORY.createNonBlockingByteBufferParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+    }
+
+    /**
+     * Parse one chunk of the response body; the caller keeps ownership of the buffer
+     */
+    void feed(DataBuffer buffer) {
+        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                feed(iterator.next());
+            }
+        }
+    }
+
+    void feed(ByteBuffer bytes) {
+        try {
+            feeder.feedInput(bytes);
+            drain();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed Treasury API response", e);
+        }
+    }
+
+    /**
+     * Signal the end of the body; fails if the document was cut short
+     */
+    void endOfInput() {
+        feeder.endOfInput();
+        try {
+            drain();
+            parser.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Malformed Treasury API response", e);
+        }
+        if (depth != 0) {
+            throw new IllegalStateException("Truncated Treasury API response");
+        }
+    }
+
+    int rowCount() {
+        return rowCount;
+    }
+
+    Integer totalPages() {
+        return totalPages;
+    }
+
+    Integer totalCount() {
+        return totalCount;
+    }
+
+    private void drain() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            onToken(token);
+        }
+    }
+
+    private void onToken(JsonToken token) throws IOException {
+        switch (token) {
+            case START_OBJECT:
+            case START_ARRAY:
+                depth++;
+                if (depth == 2) {
+                    section = "data".equals(topField) && token == JsonToken.START_ARRAY ? Section.DATA
+                        : "meta".equals(topField) && token == JsonToken.START_OBJECT ? Section.META
+                        : Section.OTHER;
+                }
+                innerField = null;
+                break;
+            case END_OBJECT:
+            case END_ARRAY:
+                if (depth == 3 && section == Section.DATA) {
+                    rowCount++;
+                    handler.endRow();
+                }
+                depth--;
+                if (depth == 1) {
+                    section = Section.NONE;
+                }
+                innerField = null;
+                break;
+            case FIELD_NAME:
+                if (depth == 1) {
+                    topField = parser.currentName();
+                } else {
+                    innerField = parser.currentName();
+                }
+                break;
+            case VALUE_NULL:
+                break;
+            default:
+                onScalar(token);
+        }
+    }
+
+    private void onScalar(JsonToken token) throws IOException {
+        if (innerField == null) {
+            return;
+        }
+        if (depth == 3 && section == Section.DATA) {
+            handler.field(innerField, parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+        } else if (depth == 2 && section == Section.META && token == JsonToken.VALUE_NUMBER_INT) {
+            if ("total-pages".equals(innerField)) {
+                totalPages = parser.getIntValue();
+            } else if ("total-count".equals(innerField)) {
+                totalCount = parser.getIntValue();
+            }
+        }
+    }
+}
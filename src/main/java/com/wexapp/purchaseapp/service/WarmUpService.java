@@ -0,0 +1,198 @@
+package com.wexapp.purchaseapp.service;
+
+import com.wexapp.purchaseapp.dto.CountryCurrencyDTO;
+import com.wexapp.purchaseapp.dto.WarmUpStatusDTO;
+import com.wexapp.purchaseapp.repository.PurchaseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Startup warm-up, so the first requests after a deploy do not pay for cold caches
+ * Loads the country/currency catalog, then preloads rate windows for every currency used by stored
+ * purchases plus the popular currencies. The instance reports ready (GET /api/status/ready) once
+ * warm-up has finished or its deadline has passed, whichever comes first
+ */
+@Component
+public class WarmUpService {
+
+    private static final Logger logger = LoggerFactory.getLogger(WarmUpService.class);
+
+    public enum State {
+        WARMING_UP, READY, DEADLINE_PASSED, DISABLED
+    }
+
+    @Autowired
+    private CurrencyCatalog currencyCatalog;
+
+    @Autowired
+    private CurrencyService currencyService;
+
+    @Autowired
+    private PurchaseRepository purchaseRepository;
+
+    @Value("${currency.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${currency.warmup.deadline-seconds:90}")
+    private long deadlineSeconds;
+
+    @Value("${currency.warmup.lookback-months:12}")
+    private long lookbackMonths;
+
+    @Value("${currency.warmup.concurrency:4}")
+    private int concurrency;
+
+    private final Clock clock;
+    private volatile State state = State.WARMING_UP;
+    private volatile Instant startedAt;
+    private volatile Instant deadline;
+    private volatile Instant finishedAt;
+    private volatile boolean catalogLoaded;
+    private volatile int currencyCount;
+    private final AtomicInteger currenciesLoaded = new AtomicInteger();
+    private final AtomicInteger currenciesFailed = new AtomicInteger();
+
+    public WarmUpService() {
+        this(Clock.systemUTC());
+    }
+
+    WarmUpService(Clock clock) {
+        this.clock = clock;
+    }
+
+    // Runs after the stored rates and rate snapshot are loaded, so covered windows never go to Treasury
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    public void onApplicationReady() {
+        if (!enabled) {
+            state = State.DISABLED;
+            return;
+        }
+        begin(Duration.ofSeconds(deadlineSeconds));
+        Thread thread = new Thread(this::warmUp, "startup-warm-up");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Whether the instance should receive traffic
+     */
+    public boolean isReady() {
+        return currentState() != State.WARMING_UP;
+    }
+
+    public WarmUpStatusDTO status() {
+        State current = currentState();
+        return new WarmUpStatusDTO(current.name(), current != State.WARMING_UP, startedAt, finishedAt,
+            catalogLoaded, currencyCount, currenciesLoaded.get(), currenciesFailed.get());
+    }
+
+    /**
+     * Start the deadline; the instance reports ready once it passes even if warm-up is still running
+     */
+    void begin(Duration timeout) {
+        startedAt = clock.instant();
+        deadline = startedAt.plus(timeout);
+    }
+
+    State currentState() {
+        // The deadline holds even while a warm-up step is still blocked
+        if (state == State.WARMING_UP && deadline != null && clock.instant().isAfter(deadline)) {
+            finish(State.DEADLINE_PASSED);
+        }
+        return state;
+    }
+
+    private void warmUp() {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, concurrency), runnable -> {
+            Thread thread = new Thread(runnable, "startup-warm-up-rates");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            catalogLoaded = currencyCatalog.awaitInitialLoad(remaining());
+            logger.info("Warm-up: currency catalog {}", catalogLoaded ? "loaded" : "not fully loaded");
+
+            Set<String> currencies = new LinkedHashSet<>(purchaseRepository.findDistinctCurrencyCodes());
+            for (CountryCurrencyDTO popular : currencyCatalog.getPopularCurrencies()) {
+                currencies.add(popular.getCurrencyCode());
+            }
+            currencyCount = currencies.size();
+
+            // Same window a conversion of the stored purchases would ask for, capped by the lookback
+            LocalDate today = LocalDate.now();
+            LocalDate earliestPurchase = purchaseRepository.findEarliestDate();
+            LocalDate lookbackStart = today.minusMonths(lookbackMonths);
+            LocalDate from = (earliestPurchase == null || earliestPurchase.isBefore(lookbackStart)
+                ? lookbackStart : earliestPurchase).minusMonths(6);
+
+            List<CompletableFuture<Void>> preloads = new ArrayList<>();
+            for (String currency : currencies) {
+                preloads.add(CompletableFuture.runAsync(() -> {
+                    if (currencyService.preloadRates(currency, from, today)) {
+                        currenciesLoaded.incrementAndGet();
+                    } else {
+                        currenciesFailed.incrementAndGet();
+                    }
+                }, executor));
+            }
+            CompletableFuture.allOf(preloads.toArray(new CompletableFuture<?>[0]))
+                .get(remaining().toMillis(), TimeUnit.MILLISECONDS);
+            finish(State.READY);
+        } catch (TimeoutException e) {
+            finish(State.DEADLINE_PASSED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            finish(State.DEADLINE_PASSED);
+        } catch (Exception e) {
+            // A failed warm-up only costs latency; never keep the instance out of rotation for it
+            logger.warn("Warm-up failed: {}", e.getMessage());
+            finish(State.READY);
+        } finally {
+            // Preloads still running after the deadline finish in the background
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Record the outcome; only the first one counts, so a warm-up finishing after its deadline stays DEADLINE_PASSED
+     */
+    synchronized void finish(State outcome) {
+        if (state != State.WARMING_UP) {
+            return;
+        }
+        state = outcome;
+        finishedAt = clock.instant();
+        logger.info("Warm-up {} after {} ms: catalog loaded={}, rates preloaded for {} of {} currencies ({} failed)",
+            outcome == State.READY ? "finished" : "deadline passed",
+            Duration.between(startedAt, finishedAt).toMillis(), catalogLoaded,
+            currenciesLoaded.get(), currencyCount, currenciesFailed.get());
+    }
+
+    private Duration remaining() {
+        Duration remaining = Duration.between(clock.instant(), deadline);
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+}
@@ -2,9 +2,15 @@ package com.wexapp.purchaseapp.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.wexapp.purchaseapp.dto.PurchaseDTO;
+import com.wexapp.purchaseapp.dto.PurchaseWithConversionDTO;
 import com.wexapp.purchaseapp.entity.ApiKey;
+import com.wexapp.purchaseapp.entity.PurchaseConversion;
 import com.wexapp.purchaseapp.repository.ApiKeyRepository;
+import com.wexapp.purchaseapp.repository.PurchaseConversionRepository;
 import com.wexapp.purchaseapp.repository.PurchaseRepository;
+import com.wexapp.purchaseapp.service.CurrencyService;
+import com.wexapp.purchaseapp.service.PurchaseDictionary;
+import com.wexapp.purchaseapp.service.TreasuryClient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -13,12 +19,23 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -40,12 +57,25 @@ class PurchaseControllerTest {
     @Autowired
     private ApiKeyRepository apiKeyRepository;
 
+    @Autowired
+    private PurchaseConversionRepository purchaseConversionRepository;
+
+    @Autowired
+    private PurchaseDictionary purchaseDictionary;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private CurrencyService currencyService;
+
     private static final String API_KEY_HEADER = "X-API-Key";
     private static final String TEST_API_KEY = "test-api-key";
 
     @BeforeEach
     void setUp() {
         // Clear the database before each test
+        purchaseConversionRepository.deleteAll();
         purchaseRepository.deleteAll();
         apiKeyRepository.deleteAll();
 
@@ -164,6 +194,17 @@ class PurchaseControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void testGetPurchaseById_NotFoundForUnknownOrMalformedId() throws Exception {
+        mockMvc.perform(get("/api/purchases/{id}", UUID.randomUUID())
+                        .header(API_KEY_HEADER, TEST_API_KEY))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/api/purchases/{id}", "not-a-uuid")
+                        .header(API_KEY_HEADER, TEST_API_KEY))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void testGetAllPurchases_AfterCreate() throws Exception {
         // Create a purchase
@@ -236,6 +277,394 @@ class PurchaseControllerTest {
                 .andExpect(jsonPath("$", hasSize(0)));
     }
 
+    @Test
+    void testGetAllPurchases_KeysetPages() throws Exception {
+        // Three purchases on two dates; pages are ordered by date desc, then id
+        for (int day = 0; day < 3; day++) {
+            PurchaseDTO purchaseDTO = createValidPurchaseDTO();
+            purchaseDTO.setDate(LocalDate.now().minusDays(day / 2));
+            purchaseDTO.setDescription("Paged Purchase " + day);
+            mockMvc.perform(post("/api/purchases")
+                            .header(API_KEY_HEADER, TEST_API_KEY)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(purchaseDTO)))
+                    .andExpect(status().isCreated());
+        }
+
+        String nextCursor = mockMvc.perform(get("/api/purchases")
+                        .param("limit", "2")
+                        .header(API_KEY_HEADER, TEST_API_KEY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].date").value(LocalDate.now().toString()))
+                .andExpect(jsonPath("$[1].date").value(LocalDate.now().toString()))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn()
+                .getResponse()
+                .getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/purchases")
+                        .param("limit", "2")
+                        .param("after", nextCursor)
+                        .header(API_KEY_HEADER, TEST_API_KEY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].date").value(LocalDate.now().minusDays(1).toString()))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void testGetAllPurchases_WithoutLimit_ReturnsFirstPage() throws Exception {
+        // One purchase more than the default page size (purchases.page.default-limit)
+        List<PurchaseDTO> purchases = new ArrayList<>();
+        for (int i = 0; i < 101; i++) {
+            purchases.add(createValidPurchaseDTO());
+        }
+        mockMvc.perform(post("/api/purchases/batch")
+                        .header(API_KEY_HEADER, TEST_API_KEY)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(purchases)))
+                .andExpect(status().isOk());
+
+        String nextCursor = mockMvc.perform(get("/api/purchases")
+                        .header(API_KEY_HEADER, TEST_API_KEY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(100)))
+                .andExpect(header().exists("X-Next-Cursor"))
+                .andReturn()
+                .getResponse()
+                .getHeader("X-Next-Cursor");
+
+        mockMvc.perform(get("/api/purchases/converted")
+                        .param("after", nextCursor)
+                        .header(API_KEY_HEADER, TEST_API_KEY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void testGetAllPurchases_InvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/purchases")
+                        .param("after", "not-a-cursor")
+                        .header(API_KEY_HEADER, TEST_API_KEY))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").exists());
+    }
+
+    @Test
+    void testGetAllPurchases_Filters() throws Exception {
+        String[][] purchases = {{"0", "25.00"}, {"10", "150.00"}, {"40", "300.00"}};
+        for (String[] purchase : purchases) {
+            PurchaseDTO purchaseDTO = createValidPurchaseDTO();
+            purchaseDTO.setDate(LocalDate.now().minusDays(Long.parseLong(purchase[0])));
+            purchaseDTO.setPurchaseAmount(new BigDecimal(purchase[1]));
+            mockMvc.perform(post("/api/purchases")
+                            .header(API_KEY_HEADER, TEST_API_KEY)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(purchaseDTO)))
+                    .andExpect(status().isCreated());
+        }
+
+        mockMvc.perform(get("/api/purchases")
+                        .param("startDate", LocalDate.now().minusDays(15).toString())
+                        .header(API_KEY_HEADER, TEST_API_KEY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)));
+
+        mockMvc.perform(get("/api/purchases")
+                        .param("minAmount", "100")
+                        .param("maxAmount", "200")
+                        .param("country", "United States")
+                        .param("currencyCode", "United States-Dollar")
+                        .header(API_KEY_HEADER, TEST_API_KEY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].purchaseAmount").value(150.00));
+
+        // A country nobody purchased in matches nothing (and is not added to the dictionary)
+        mockMvc.perform(get("/api/purchases")
+                        .param("country", "Atlantis")
+                        .header(API_KEY_HEADER, TEST_API_KEY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(0)));
+
+        mockMvc.perform(get("/api/purchases")
+                        .param("startDate", LocalDate.now().toString())
+                        .param("endDate", LocalDate.now().minusDays(1).toString())
+                        .header(API_KEY_HEADER, TEST_API_KEY))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetPurchaseSummary_GroupsInDatabase() throws Exception {
+        for (String amount : new String[]{"10.25", "20.50"}) {
+            PurchaseDTO purchaseDTO = createValidPurchaseDTO();
+            purchaseDTO.setPurchaseAmount(new BigDecimal(amount));
+            mockMvc.perform(post("/api/purchases")
+                            .header(API_KEY_HEADER, TEST_API_KEY)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(purchaseDTO)))
+                    .andExpect(status().isCreated());
+        }
+
+        mockMvc.perform(get("/api/purchases/summary")
+                        .param("groupBy", "country")
+                        .header(API_KEY_HEADER, TEST_API_KEY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].country").value("United States"))
+                .andExpect(jsonPath("$[0].month").doesNotExist())
+                .andExpect(jsonPath("$[0].purchaseCount").value(2))
+                .andExpect(jsonPath("$[0].totalAmount").value(30.75))
+                .andExpect(jsonPath("$[0].convertedTotal").doesNotExist());
+
+        mockMvc.perform(get("/api/purchases/summary")
+                        .param("groupBy", "week")
+                        .header(API_KEY_HEADER, TEST_API_KEY))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void testGetPurchaseSummary_ConvertsOncePerRateBucket() throws Exception {
+        // Given - stored Summaryland-Florin records, so no Treasury call is needed
+        currencyService.loadStoredRates(List.of(
+                new TreasuryClient.TreasuryRate("Summaryland-Florin", LocalDate.of(2001, 3, 31), new BigDecimal("1.5")),
+                new TreasuryClient.TreasuryRate("Summaryland-Florin", LocalDate.of(2001, 4, 30), new BigDecimal("2"))
+        ), LocalDate.of(2000, 9, 1), LocalDate.of(2001, 6, 30));
+        // April spans both records (the 10th and 20th use 1.5, the 30th uses 2); May uses 2
+        String[][] purchases = {
+                {"2001-04-10", "10.01"}, {"2001-04-20", "10.01"}, {"2001-04-30", "5.00"}, {"2001-05-15", "30.00"}};
+        for (String[] purchase : purchases) {
+            PurchaseDTO purchaseDTO = createValidPurchaseDTO();
+            purchaseDTO.setDate(LocalDate.parse(purchase[0]));
+            purchaseDTO.setPurchaseAmount(new BigDecimal(purchase[1]));
+            mockMvc.perform(post("/api/purchases")
+                            .header(API_KEY_HEADER, TEST_API_KEY)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(purchaseDTO)))
+                    .andExpect(status().isCreated());
+        }
+
+        // Then - days sharing a record are summed before converting: 20.02 * 1.5 = 30.03, not 15.02 + 15.02,
+        // plus 5.00 * 2 for the day on the newer record
+        mockMvc.perform(get("/api/purchases/summary")
+                        .param("groupBy", "month")
+                        .param("currency", "Summaryland-Florin")
+                        .header(API_KEY_HEADER, TEST_API_KEY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(2)))
+                .andExpect(jsonPath("$[0].month").value("2001-05"))
+                .andExpect(jsonPath("$[0].country").doesNotExist())
+                .andExpect(jsonPath("$[0].purchaseCount").value(1))
+                .andExpect(jsonPath("$[0].totalAmount").value(30.00))
+                .andExpect(jsonPath("$[0].convertedTotal").value(60.00))
+                .andExpect(jsonPath("$[1].month").value("2001-04"))
+                .andExpect(jsonPath("$[1].purchaseCount").value(3))
+                .andExpect(jsonPath("$[1].totalAmount").value(25.02))
+                .andExpect(jsonPath("$[1].convertedTotal").value(40.03))
+                .andExpect(jsonPath("$[1].rateStale").value(false));
+    }
+
+    @Test
+    void testExportConverted_StreamsNdjson() throws Exception {
+        // The export runs in its own read-only transaction, so it only sees committed rows;
+        // import them (chunks commit in their own transactions), one more than a cursor chunk
+        int purchaseCount = PurchaseRepository.STREAM_FETCH_SIZE + 1;
+        StringBuilder csv = new StringBuilder("date,description,purchaseAmount,country\n");
+        for (int i = 0; i < purchaseCount; i++) {
+            csv.append(LocalDate.now()).append(",Exported purchase ").append(i).append(",12.50,United States\n");
+        }
+        mockMvc.perform(post("/api/purchases/import")
+                        .header(API_KEY_HEADER, TEST_API_KEY)
+                        .contentType("text/csv")
+                        .content(csv.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(purchaseCount));
+
+        MvcResult result = mockMvc.perform(get("/api/purchases/converted")
+                        .param("format", "ndjson")
+                        .header(API_KEY_HEADER, TEST_API_KEY))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        try {
+            List<String> lines = body.lines().toList();
+            assertEquals(purchaseCount, lines.size(), "Every purchase should be written once, across both chunks");
+            Set<String> descriptions = new HashSet<>();
+            for (String line : lines) {
+                PurchaseWithConversionDTO purchase = objectMapper.readValue(line, PurchaseWithConversionDTO.class);
+                descriptions.add(purchase.getDescription());
+                assertEquals(0, new BigDecimal("12.50").compareTo(purchase.getConvertedAmount()));
+                assertEquals(0, BigDecimal.ONE.compareTo(purchase.getExchangeRate()));
+                assertEquals("United States-Dollar", purchase.getCurrencyCode());
+            }
+            assertEquals(purchaseCount, descriptions.size());
+            assertTrue(descriptions.contains("Exported purchase 0"));
+            assertTrue(descriptions.contains("Exported purchase " + PurchaseRepository.STREAM_FETCH_SIZE));
+        } finally {
+            // Remove the committed rows so tests reading in their own transactions do not see them
+            TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+            newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            newTransaction.executeWithoutResult(status -> purchaseRepository.deleteAll(
+                    purchaseRepository.findAll().stream()
+                            .filter(purchase -> purchase.getDescription().startsWith("Exported purchase "))
+                            .toList()));
+        }
+    }
+
+    @Test
+    void testCreatePurchasesBatch_ReportsEachItem() throws Exception {
+        PurchaseDTO valid = createValidPurchaseDTO();
+        PurchaseDTO unknownCountry = createValidPurchaseDTO();
+        unknownCountry.setCountry("Atlantis");
+        PurchaseDTO noDescription = createValidPurchaseDTO();
+        noDescription.setDescription("");
+
+        mockMvc.perform(post("/api/purchases/batch")
+                        .header(API_KEY_HEADER, TEST_API_KEY)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(List.of(valid, unknownCountry, noDescription, valid))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(4)))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[0].id").exists())
+                .andExpect(jsonPath("$[0].currencyCode").value("United States-Dollar"))
+                .andExpect(jsonPath("$[1].status").value("REJECTED"))
+                .andExpect(jsonPath("$[1].errors.country").exists())
+                .andExpect(jsonPath("$[2].status").value("REJECTED"))
+                .andExpect(jsonPath("$[2].errors.description").value("Description is required"))
+                .andExpect(jsonPath("$[3].index").value(3))
+                .andExpect(jsonPath("$[3].status").value("CREATED"));
+
+        assertEquals(2, purchaseRepository.count());
+    }
+
+    @Test
+    void testImportPurchasesCsv_CountsImportedAndRejectedRows() throws Exception {
+        // Chunks commit in their own transactions, which the test transaction cannot roll back
+        String csv = "date,description,purchaseAmount,country\n"
+                + LocalDate.now() + ",Imported purchase,12.50,United States\n"
+                + "not-a-date,Bad date,1.00,United States\n"
+                + LocalDate.now() + ",Unknown country,1.00,Atlantis\n";
+
+        mockMvc.perform(post("/api/purchases/import")
+                        .header(API_KEY_HEADER, TEST_API_KEY)
+                        .contentType("text/csv")
+                        .content(csv))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed").value(true))
+                .andExpect(jsonPath("$.rowsRead").value(3))
+                .andExpect(jsonPath("$.imported").value(1))
+                .andExpect(jsonPath("$.rejected").value(2))
+                .andExpect(jsonPath("$.errors[0].row").value(2))
+                .andExpect(jsonPath("$.errors[0].errors.date").exists())
+                .andExpect(jsonPath("$.errors[1].row").value(3))
+                .andExpect(jsonPath("$.errors[1].errors.country").exists());
+
+        mockMvc.perform(post("/api/purchases/import")
+                        .header(API_KEY_HEADER, TEST_API_KEY)
+                        .contentType("text/csv")
+                        .content("date,description\n"))
+                .andExpect(status().isBadRequest());
+
+        // Remove the committed rows so tests reading in their own transactions do not see them
+        TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        newTransaction.executeWithoutResult(status -> purchaseRepository.deleteAll(
+                purchaseRepository.findAll().stream()
+                        .filter(purchase -> "Imported purchase".equals(purchase.getDescription()))
+                        .toList()));
+    }
+
+    @Test
+    void testCreatePurchaseAsync_CommitsInBackground() throws Exception {
+        // The writer commits in its own transactions, which the test transaction cannot roll back
+        PurchaseDTO purchaseDTO = createValidPurchaseDTO();
+        purchaseDTO.setDescription("Async purchase");
+        String response = mockMvc.perform(post("/api/purchases")
+                        .param("async", "true")
+                        .header(API_KEY_HEADER, TEST_API_KEY)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(purchaseDTO)))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", startsWith("/api/purchases/ingest/")))
+                .andExpect(jsonPath("$.id").exists())
+                .andExpect(jsonPath("$.currencyCode").value("United States-Dollar"))
+                .andReturn().getResponse().getContentAsString();
+        String id = objectMapper.readValue(response, PurchaseDTO.class).getId();
+
+        String state = null;
+        for (int attempt = 0; attempt < 100 && !"COMMITTED".equals(state); attempt++) {
+            String status = mockMvc.perform(get("/api/purchases/ingest/" + id)
+                            .header(API_KEY_HEADER, TEST_API_KEY))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+            state = objectMapper.readTree(status).get("state").asText();
+            if (!"COMMITTED".equals(state)) {
+                Thread.sleep(50);
+            }
+        }
+        assertEquals("COMMITTED", state);
+
+        mockMvc.perform(get("/api/purchases/ingest/" + UUID.randomUUID())
+                        .header(API_KEY_HEADER, TEST_API_KEY))
+                .andExpect(status().isNotFound());
+
+        purchaseDTO.setCountry("Atlantis");
+        mockMvc.perform(post("/api/purchases")
+                        .param("async", "true")
+                        .header(API_KEY_HEADER, TEST_API_KEY)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(purchaseDTO)))
+                .andExpect(status().isBadRequest());
+
+        TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        newTransaction.executeWithoutResult(status -> purchaseRepository.deleteById(UUID.fromString(id)));
+    }
+
+    @Test
+    void testGetConverted_ServesStoredConversions() throws Exception {
+        PurchaseDTO purchaseDTO = createValidPurchaseDTO();
+        String createResponse = mockMvc.perform(post("/api/purchases")
+                        .header(API_KEY_HEADER, TEST_API_KEY)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(purchaseDTO)))
+                .andExpect(status().isCreated())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+        String purchaseId = objectMapper.readValue(createResponse, PurchaseDTO.class).getId();
+
+        // A stored conversion is served as is, without resolving a rate; like every writer, register
+        // the currency first
+        purchaseDictionary.currencyId("Canada-Dollar");
+        purchaseConversionRepository.saveAndFlush(new PurchaseConversion(null, UUID.fromString(purchaseId), "Canada-Dollar",
+                purchaseDTO.getDate(), new BigDecimal("137.69"), new BigDecimal("1.37"),
+                purchaseDTO.getDate().minusDays(5), null));
+
+        mockMvc.perform(get("/api/purchases/converted")
+                        .param("currency", "Canada-Dollar")
+                        .header(API_KEY_HEADER, TEST_API_KEY))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$", hasSize(1)))
+                .andExpect(jsonPath("$[0].convertedAmount").value(137.69))
+                .andExpect(jsonPath("$[0].exchangeRate").value(1.37))
+                .andExpect(jsonPath("$[0].rateStale").value(false));
+
+        // Deleting the purchase drops its stored conversions
+        mockMvc.perform(delete("/api/purchases/{id}", purchaseId)
+                        .header(API_KEY_HEADER, TEST_API_KEY))
+                .andExpect(status().isNoContent());
+        assertEquals(0, purchaseConversionRepository.count());
+    }
+
     // Helper method to create a valid PurchaseDTO
     private PurchaseDTO createValidPurchaseDTO() {
         PurchaseDTO dto = new PurchaseDTO();
@@ -0,0 +1,43 @@
+package com.wexapp.purchaseapp.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedUuidTest {
+
+    @Test
+    void testNext_ShouldBeVersion7WithCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID id = TimeOrderedUuid.next();
+        long after = System.currentTimeMillis();
+
+        assertEquals(7, id.version());
+        assertEquals(2, id.variant());
+        long millis = id.getMostSignificantBits() >>> 16;
+        // Bursts that exhaust the per-millisecond sequence borrow later milliseconds
+        assertTrue(millis >= before && millis <= after + 1000, "timestamp " + millis);
+    }
+
+    @Test
+    void testNext_ShouldIncreaseAsUnsignedBytes() {
+        UUID previous = TimeOrderedUuid.next();
+        for (int i = 0; i < 100_000; i++) {
+            UUID next = TimeOrderedUuid.next();
+            // BINARY(16) compares byte by byte, i.e. the high 64 bits unsigned first
+            assertTrue(Long.compareUnsigned(next.getMostSignificantBits(), previous.getMostSignificantBits()) > 0,
+                    previous + " then " + next);
+            previous = next;
+        }
+    }
+
+    @Test
+    void testParse_ShouldRejectNonCanonicalIds() {
+        UUID id = TimeOrderedUuid.next();
+        assertEquals(id, TimeOrderedUuid.parse(id.toString()).orElseThrow());
+        assertTrue(TimeOrderedUuid.parse("non-existent-id-12345").isEmpty());
+        assertTrue(TimeOrderedUuid.parse(null).isEmpty());
+    }
+}
@@ -0,0 +1,112 @@
+package com.wexapp.purchaseapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-06-15T12:00:00Z"));
+    private final CircuitBreaker breaker = new CircuitBreaker("treasury", 3, Duration.ofSeconds(30), clock);
+
+    @Test
+    void testFailuresBelowThreshold_ShouldStayClosed() {
+        fail(2);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.snapshot().state());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void testFailuresAtThreshold_ShouldOpenAndRejectCalls() {
+        fail(3);
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.snapshot().state());
+        assertFalse(breaker.tryAcquire());
+        assertNotNull(breaker.snapshot().lastFailure());
+    }
+
+    @Test
+    void testSuccess_ShouldResetFailureCount() {
+        fail(2);
+        assertTrue(breaker.tryAcquire());
+        breaker.onSuccess();
+        fail(2);
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.snapshot().state());
+    }
+
+    @Test
+    void testAfterOpenPeriod_ShouldAllowOneTrialCall() {
+        fail(3);
+        clock.advance(Duration.ofSeconds(31));
+
+        assertTrue(breaker.tryAcquire(), "First call after the open period is the trial");
+        assertFalse(breaker.tryAcquire(), "Only one trial call at a time");
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.snapshot().state());
+    }
+
+    @Test
+    void testTrialSuccess_ShouldClose() {
+        fail(3);
+        clock.advance(Duration.ofSeconds(31));
+        breaker.tryAcquire();
+
+        breaker.onSuccess();
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.snapshot().state());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void testTrialFailure_ShouldReopen() {
+        fail(3);
+        clock.advance(Duration.ofSeconds(31));
+        breaker.tryAcquire();
+
+        breaker.onFailure(new IllegalStateException("still down"));
+
+        assertEquals(CircuitBreaker.State.OPEN, breaker.snapshot().state());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    private void fail(int times) {
+        for (int i = 0; i < times; i++) {
+            assertTrue(breaker.tryAcquire());
+            breaker.onFailure(new IllegalStateException("Treasury timeout"));
+        }
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
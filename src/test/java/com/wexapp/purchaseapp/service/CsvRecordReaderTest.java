@@ -0,0 +1,35 @@
+package com.wexapp.purchaseapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void testNext_ShouldHandleQuotesAndLineEnds() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader(
+                "\uFEFFdate,description\r\n2025-01-20,\"Coffee, large\"\n2025-01-21,\"Say \"\"hi\"\"\nthere\""), 100);
+
+        assertEquals(List.of("date", "description"), reader.next());
+        assertEquals(List.of("2025-01-20", "Coffee, large"), reader.next());
+        assertEquals(List.of("2025-01-21", "Say \"hi\"\nthere"), reader.next());
+        assertNull(reader.next());
+    }
+
+    @Test
+    void testNext_ShouldDropOverlongRecordAndContinue() throws IOException {
+        CsvRecordReader reader = new CsvRecordReader(new StringReader("a,b\n" + "x".repeat(50) + ",y\nc,d\n"), 10);
+
+        assertEquals(List.of("a", "b"), reader.next());
+        assertEquals(List.of(), reader.next());
+        assertTrue(reader.lastRecordTooLong());
+        assertEquals(List.of("c", "d"), reader.next());
+        assertFalse(reader.lastRecordTooLong());
+        assertNull(reader.next());
+    }
+}
@@ -1,11 +1,16 @@
 package com.wexapp.purchaseapp.service;
 
 import com.wexapp.purchaseapp.dto.CountryCurrencyDTO;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -17,6 +22,15 @@ class CurrencyServiceTest {
     @Autowired
     private CurrencyService currencyService;
 
+    @Autowired
+    private CurrencyCatalog currencyCatalog;
+
+    @BeforeEach
+    void setUp() {
+        // The catalog loads in the background; until then readers only get the popular currencies
+        currencyCatalog.awaitInitialLoad(Duration.ofSeconds(60));
+    }
+
     @Test
     void testGetCountryCurrencyMap_ShouldReturnNonEmptyMap() {
         // When
@@ -173,5 +187,38 @@ class CurrencyServiceTest {
                     "Found %d unique currencies.", uniqueCurrencyCodes));
         }
     }
-}
 
+    @Test
+    void testGetCrossRates_ShouldDeriveRateFromUsdLegs() {
+        // Given - stored rates for two currencies, so no Treasury call is needed
+        LocalDate recordDate = LocalDate.of(2001, 3, 31);
+        currencyService.loadStoredRates(List.of(
+            new TreasuryClient.TreasuryRate("Testland-Crown", recordDate, new BigDecimal("1.5")),
+            new TreasuryClient.TreasuryRate("Otherland-Mark", recordDate, new BigDecimal("18"))
+        ), LocalDate.of(2000, 10, 1), LocalDate.of(2001, 6, 30));
+        LocalDate purchaseDate = LocalDate.of(2001, 5, 15);
+
+        // When
+        Map<LocalDate, CurrencyService.CrossRate> rates =
+            currencyService.getCrossRates("Testland-Crown", "Otherland-Mark", List.of(purchaseDate));
+
+        // Then - 18 Mark per USD / 1.5 Crown per USD = 12 Mark per Crown
+        CurrencyService.CrossRate rate = rates.get(purchaseDate);
+        assertNotNull(rate, "Cross rate should be resolved from the stored legs");
+        assertEquals(new BigDecimal("12"), rate.rate());
+        assertFalse(rate.stale());
+        assertEquals(new BigDecimal("120.06"), rate.convert(new BigDecimal("10.005")));
+        assertEquals(new BigDecimal("120.00"),
+            currencyService.convertCurrency(new BigDecimal("10.00"), "Testland-Crown", "Otherland-Mark", purchaseDate));
+        assertEquals(new BigDecimal("6.67"),
+            currencyService.convertCurrency(new BigDecimal("10.00"), "Testland-Crown", "United States-Dollar", purchaseDate));
+    }
+
+    @Test
+    void testCrossRate_ShouldKeepSixteenSignificantDigits() {
+        assertEquals(new BigDecimal("0.3333333333333333"),
+            CurrencyService.crossRate(new BigDecimal("3"), BigDecimal.ONE));
+        assertEquals(new BigDecimal("100"),
+            CurrencyService.crossRate(new BigDecimal("0.5"), new BigDecimal("50")));
+    }
+}
@@ -0,0 +1,87 @@
+package com.wexapp.purchaseapp.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExchangeRateIndexTest {
+
+    private static final String CURRENCY = "Canada-Dollar";
+
+    private ExchangeRateIndex index;
+
+    @BeforeEach
+    void setUp() {
+        Clock clock = Clock.fixed(Instant.parse("2025-06-15T12:00:00Z"), ZoneOffset.UTC);
+        index = new ExchangeRateIndex(Duration.ofMinutes(60), clock);
+    }
+
+    @Test
+    void testMissingRanges_UnknownCurrency_ShouldReturnWholeWindow() {
+        List<ExchangeRateIndex.DateRange> missing =
+            index.missingRanges(CURRENCY, LocalDate.of(2024, 12, 1), LocalDate.of(2025, 6, 1));
+
+        assertEquals(1, missing.size());
+        assertEquals(LocalDate.of(2024, 12, 1), missing.get(0).from());
+        assertEquals(LocalDate.of(2025, 6, 1), missing.get(0).to());
+    }
+
+    @Test
+    void testMissingRanges_LoadedWindow_ShouldReturnEmpty() {
+        index.load(CURRENCY, LocalDate.of(2024, 12, 1), LocalDate.of(2025, 6, 1), Map.of());
+
+        assertTrue(index.missingRanges(CURRENCY, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 5, 1)).isEmpty());
+    }
+
+    @Test
+    void testMissingRanges_PartiallyLoaded_ShouldReturnOnlyTheGaps() {
+        index.load(CURRENCY, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 3, 31), Map.of());
+
+        List<ExchangeRateIndex.DateRange> missing =
+            index.missingRanges(CURRENCY, LocalDate.of(2024, 12, 1), LocalDate.of(2025, 5, 1));
+
+        assertEquals(2, missing.size());
+        assertEquals(new ExchangeRateIndex.DateRange(LocalDate.of(2024, 12, 1), LocalDate.of(2024, 12, 31)), missing.get(0));
+        assertEquals(new ExchangeRateIndex.DateRange(LocalDate.of(2025, 4, 1), LocalDate.of(2025, 5, 1)), missing.get(1));
+    }
+
+    @Test
+    void testFloor_ShouldReturnLatestRateOnOrBeforeDate() {
+        index.load(CURRENCY, LocalDate.of(2024, 6, 1), LocalDate.of(2025, 6, 1), Map.of(
+            LocalDate.of(2024, 12, 31), new BigDecimal("1.439"),
+            LocalDate.of(2025, 3, 31), new BigDecimal("1.435")));
+
+        Optional<ExchangeRateIndex.RateEntry> entry =
+            index.floor(CURRENCY, LocalDate.of(2025, 3, 30), LocalDate.of(2024, 9, 30));
+
+        assertTrue(entry.isPresent());
+        assertEquals(LocalDate.of(2024, 12, 31), entry.get().recordDate());
+        assertEquals(new BigDecimal("1.439"), entry.get().rate());
+    }
+
+    @Test
+    void testFloor_RateOlderThanWindow_ShouldReturnEmpty() {
+        index.load(CURRENCY, LocalDate.of(2024, 1, 1), LocalDate.of(2025, 6, 1), Map.of(
+            LocalDate.of(2024, 3, 31), new BigDecimal("1.355")));
+
+        assertTrue(index.floor(CURRENCY, LocalDate.of(2025, 1, 15), LocalDate.of(2024, 7, 15)).isEmpty());
+    }
+
+    @Test
+    void testMissingRanges_FutureDates_ShouldStopAtToday() {
+        index.load(CURRENCY, LocalDate.of(2025, 1, 1), LocalDate.of(2025, 6, 15), Map.of());
+
+        assertTrue(index.missingRanges(CURRENCY, LocalDate.of(2025, 2, 1), LocalDate.of(2025, 8, 1)).isEmpty());
+    }
+}
@@ -0,0 +1,137 @@
+package com.wexapp.purchaseapp.service;
+
+import com.wexapp.purchaseapp.entity.ExchangeRate;
+import com.wexapp.purchaseapp.repository.ExchangeRateRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "currency.rates.sync.enabled=true")
+@ActiveProfiles("test")
+class ExchangeRateSyncJobTest {
+
+    private static final String CURRENCY = "Testland-Crown";
+
+    @Autowired
+    private ExchangeRateSyncJob syncJob;
+
+    @Autowired
+    private ExchangeRateRepository exchangeRateRepository;
+
+    @Autowired
+    private CurrencyService currencyService;
+
+    @Autowired
+    private CountingTreasuryClient treasuryClient;
+
+    @AfterEach
+    void tearDown() {
+        exchangeRateRepository.deleteAll(exchangeRateRepository.findAll().stream()
+            .filter(rate -> CURRENCY.equals(rate.getCurrencyCode()))
+            .toList());
+    }
+
+    @Test
+    void testSync_ShouldStoreRatesAndAnswerThemWithoutTreasury() {
+        // Given - the startup sync has stored the published records; syncing again finds nothing newer
+        syncJob.sync();
+        List<ExchangeRate> stored = exchangeRateRepository.findAll().stream()
+            .filter(rate -> CURRENCY.equals(rate.getCurrencyCode()))
+            .toList();
+        assertEquals(2, stored.size(), "Each record should be stored once");
+
+        // When
+        CurrencyService.ResolvedRate march = currencyService.resolveExchangeRate(CURRENCY, LocalDate.of(2025, 5, 15));
+        CurrencyService.ResolvedRate june = currencyService.resolveExchangeRate(CURRENCY, LocalDate.of(2025, 7, 10));
+
+        // Then - both windows are covered by the synced range, so no per-currency Treasury query is made
+        assertEquals(0, new BigDecimal("1.35").compareTo(march.rate()));
+        assertEquals(LocalDate.of(2025, 3, 31), march.recordDate());
+        assertEquals(0, new BigDecimal("1.37").compareTo(june.rate()));
+        assertEquals(LocalDate.of(2025, 6, 30), june.recordDate());
+        assertFalse(june.stale());
+        assertEquals(0, treasuryClient.rateHistoryCalls.get(), "Stored rates should be answered without Treasury");
+    }
+
+    @Test
+    void testSync_WhenAnotherInstanceStoredSomeRecordsFirst_ShouldStoreTheRest() {
+        // Given - another instance stores the March record while this one is fetching the same window
+        tearDown();
+        treasuryClient.onFetch = () -> {
+            ExchangeRate storedElsewhere = new ExchangeRate();
+            storedElsewhere.setCurrencyCode(CURRENCY);
+            storedElsewhere.setRecordDate(LocalDate.of(2025, 3, 31));
+            storedElsewhere.setExchangeRate(new BigDecimal("1.35"));
+            exchangeRateRepository.save(storedElsewhere);
+        };
+
+        // When
+        try {
+            syncJob.sync();
+        } finally {
+            treasuryClient.onFetch = () -> { };
+        }
+
+        // Then - the colliding batch is not dropped: the June record is stored next to the March one
+        List<LocalDate> stored = exchangeRateRepository.findAll().stream()
+            .filter(rate -> CURRENCY.equals(rate.getCurrencyCode()))
+            .map(ExchangeRate::getRecordDate)
+            .sorted()
+            .toList();
+        assertEquals(List.of(LocalDate.of(2025, 3, 31), LocalDate.of(2025, 6, 30)), stored);
+    }
+
+    @TestConfiguration
+    static class TreasuryStubConfig {
+        @Bean
+        @Primary
+        CountingTreasuryClient countingTreasuryClient(@Qualifier("treasuryWebClient") WebClient webClient) {
+            return new CountingTreasuryClient(webClient);
+        }
+    }
+
+    /**
+     * Publishes two Testland-Crown records to the sync and counts per-currency rate queries for them
+     * Everything else goes to Treasury as usual
+     */
+    static class CountingTreasuryClient extends TreasuryClient {
+        private final AtomicInteger rateHistoryCalls = new AtomicInteger();
+        private volatile Runnable onFetch = () -> { };
+
+        CountingTreasuryClient(WebClient webClient) {
+            super(webClient, 15000, 5, 30);
+        }
+
+        @Override
+        public List<TreasuryRate> fetchRatesAfter(LocalDate after, LocalDate historyStart) {
+            onFetch.run();
+            return List.of(
+                    new TreasuryRate(CURRENCY, LocalDate.of(2025, 6, 30), new BigDecimal("1.37")),
+                    new TreasuryRate(CURRENCY, LocalDate.of(2025, 3, 31), new BigDecimal("1.35"))).stream()
+                .filter(rate -> after == null || rate.recordDate().isAfter(after))
+                .toList();
+        }
+
+        @Override
+        public List<TreasuryRate> fetchRateHistory(String currencyCode, LocalDate from, LocalDate to) {
+            if (CURRENCY.equals(currencyCode)) {
+                rateHistoryCalls.incrementAndGet();
+            }
+            return super.fetchRateHistory(currencyCode, from, to);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.wexapp.purchaseapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixedPointRatesTest {
+
+    @Test
+    void testConvert_ShouldMatchBigDecimalExactly() {
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            BigDecimal amount = BigDecimal.valueOf(random.nextInt(100_000_000) - 1_000_000, random.nextInt(3));
+            BigDecimal rate = BigDecimal.valueOf(random.nextInt(2_000_000_000), random.nextInt(9));
+
+            assertIdentical(amount.multiply(rate).setScale(2, RoundingMode.HALF_UP),
+                    FixedPointRates.convert(amount, rate), amount + " x " + rate);
+        }
+    }
+
+    @Test
+    void testConvert_ShouldRoundHalfUpAwayFromZero() {
+        assertIdentical(new BigDecimal("0.01"), FixedPointRates.convert(new BigDecimal("0.01"), new BigDecimal("1.4999")), "below half");
+        assertIdentical(new BigDecimal("0.02"), FixedPointRates.convert(new BigDecimal("0.01"), new BigDecimal("1.5")), "half");
+        assertIdentical(new BigDecimal("-0.02"), FixedPointRates.convert(new BigDecimal("-0.01"), new BigDecimal("1.5")), "negative half");
+        assertIdentical(new BigDecimal("0.00"), FixedPointRates.convert(new BigDecimal("0.00"), new BigDecimal("1.35")), "zero");
+    }
+
+    @Test
+    void testConvert_ShouldFallBackOutsideFixedPointRange() {
+        BigDecimal hugeAmount = new BigDecimal("92233720368547758.07");
+        BigDecimal rate = new BigDecimal("1234.5678");
+        assertIdentical(hugeAmount.multiply(rate).setScale(2, RoundingMode.HALF_UP),
+                FixedPointRates.convert(hugeAmount, rate), "overflowing product");
+
+        BigDecimal fineAmount = new BigDecimal("10.005");
+        assertIdentical(fineAmount.multiply(rate).setScale(2, RoundingMode.HALF_UP),
+                FixedPointRates.convert(fineAmount, rate), "amount with more than 2 decimals");
+
+        BigDecimal preciseRate = new BigDecimal("1.123456789");
+        assertEquals(FixedPointRates.NOT_FIXED, FixedPointRates.toScaled(preciseRate));
+        assertIdentical(new BigDecimal("100.00").multiply(preciseRate).setScale(2, RoundingMode.HALF_UP),
+                FixedPointRates.convert(new BigDecimal("100.00"), preciseRate), "rate with more than 8 decimals");
+    }
+
+    @Test
+    void testToBigDecimal_ShouldStripTrailingZeros() {
+        assertIdentical(new BigDecimal("1.35"), FixedPointRates.toBigDecimal(FixedPointRates.toScaled(new BigDecimal("1.350000"))), "fraction");
+        assertIdentical(new BigDecimal("20"), FixedPointRates.toBigDecimal(FixedPointRates.toScaled(new BigDecimal("20.00"))), "whole");
+        assertIdentical(new BigDecimal("1500"), FixedPointRates.toBigDecimal(FixedPointRates.toScaled(new BigDecimal("1500.0"))), "no exponent form");
+    }
+
+    private static void assertIdentical(BigDecimal expected, BigDecimal actual, String message) {
+        assertEquals(expected, actual, message);
+        assertEquals(expected.scale(), actual.scale(), message);
+        assertEquals(expected.toString(), actual.toString(), message);
+    }
+}
@@ -0,0 +1,97 @@
+package com.wexapp.purchaseapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InFlightRequestsTest {
+
+    private final InFlightRequests<String, Integer> requests = new InFlightRequests<>();
+
+    @Test
+    void testExecute_ConcurrentCallers_ShouldShareOneCall() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> leader = executor.submit(() -> requests.execute("Canada-Dollar", () -> {
+                calls.incrementAndGet();
+                await(release);
+                return 42;
+            }));
+            waitUntilInFlight();
+            Future<Integer> follower = executor.submit(() -> requests.execute("Canada-Dollar", () -> {
+                calls.incrementAndGet();
+                return -1;
+            }));
+
+            // Give the follower time to join the pending call before the leader finishes
+            Thread.sleep(200);
+            release.countDown();
+
+            assertEquals(42, leader.get(5, TimeUnit.SECONDS));
+            assertEquals(42, follower.get(5, TimeUnit.SECONDS));
+            assertEquals(1, calls.get(), "Only the first caller should reach the loader");
+            assertEquals(0, requests.size(), "Finished calls should leave the registry");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testExecute_Failure_ShouldBeDeliveredToEveryCaller() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        IllegalStateException failure = new IllegalStateException("Treasury unavailable");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> leader = executor.submit(() -> requests.execute("Canada-Dollar", () -> {
+                await(release);
+                throw failure;
+            }));
+            waitUntilInFlight();
+            Future<Integer> follower = executor.submit(() -> requests.execute("Canada-Dollar", () -> 1));
+
+            Thread.sleep(200);
+            release.countDown();
+
+            Exception leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+            Exception followerError = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+            assertSame(failure, leaderError.getCause());
+            assertSame(failure, followerError.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void testExecute_AfterCompletion_ShouldRunAgain() {
+        AtomicInteger calls = new AtomicInteger();
+
+        requests.execute("Canada-Dollar", calls::incrementAndGet);
+        requests.execute("Canada-Dollar", calls::incrementAndGet);
+
+        assertEquals(2, calls.get());
+    }
+
+    private void waitUntilInFlight() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (requests.size() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
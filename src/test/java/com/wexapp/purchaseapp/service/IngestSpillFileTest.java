@@ -0,0 +1,122 @@
+package com.wexapp.purchaseapp.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wexapp.purchaseapp.entity.TimeOrderedUuid;
+import com.wexapp.purchaseapp.repository.PurchaseRow;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestSpillFileTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @Test
+    void testReadAll_ShouldReplayAppendedRowsAndSkipTornLines() throws IOException {
+        Path path = tempDir.resolve("ingest.spill");
+        IngestSpillFile spillFile = new IngestSpillFile(path, objectMapper);
+        PurchaseRow first = row("Laptop");
+        PurchaseRow second = row("Coffee");
+        spillFile.sync(spillFile.append(first));
+        spillFile.sync(spillFile.append(second));
+        spillFile.close();
+
+        // A crash in the middle of an append leaves a partial last line
+        Files.writeString(path, "\n{\"id\":\"0192b5a4-3c6e-7d21", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        List<PurchaseRow> replayed = new IngestSpillFile(path, objectMapper).readAll();
+        assertEquals(List.of(first, second), replayed);
+    }
+
+    @Test
+    void testRewrite_ShouldKeepOnlyPendingRows() throws IOException {
+        Path path = tempDir.resolve("ingest.spill");
+        IngestSpillFile spillFile = new IngestSpillFile(path, objectMapper);
+        PurchaseRow committed = row("Committed");
+        PurchaseRow pending = row("Pending");
+        spillFile.append(committed);
+        spillFile.sync(spillFile.append(pending));
+
+        spillFile.rewrite(List.of(pending));
+        assertEquals(List.of(pending), spillFile.readAll());
+
+        // Appends after a rewrite go to the new file
+        PurchaseRow later = row("Later");
+        spillFile.sync(spillFile.append(later));
+        assertEquals(List.of(pending, later), spillFile.readAll());
+
+        spillFile.rewrite(List.of());
+        assertEquals(0, spillFile.size());
+        assertEquals(List.of(), spillFile.readAll());
+        spillFile.close();
+    }
+
+    @Test
+    void testConcurrentAppendSyncAndRewrite_ShouldNotDeadlock() throws Exception {
+        Path path = tempDir.resolve("ingest.spill");
+        IngestSpillFile spillFile = new IngestSpillFile(path, objectMapper);
+        AtomicBoolean running = new AtomicBoolean(true);
+        // Daemon threads: a deadlocked run fails on the timeouts below instead of hanging the build
+        ExecutorService executor = Executors.newFixedThreadPool(5, runnable -> {
+            Thread thread = new Thread(runnable);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            // Request threads append and sync while the writer keeps truncating and compacting
+            List<Future<?>> appenders = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                appenders.add(executor.submit(() -> {
+                    for (int i = 0; i < 200; i++) {
+                        spillFile.sync(spillFile.append(row("Purchase " + i)));
+                    }
+                    return null;
+                }));
+            }
+            PurchaseRow kept = row("Kept");
+            Future<?> rewriter = executor.submit(() -> {
+                int rewrites = 0;
+                while (running.get()) {
+                    spillFile.rewrite(rewrites++ % 2 == 0 ? List.of() : List.of(kept));
+                }
+                return null;
+            });
+
+            for (Future<?> appender : appenders) {
+                appender.get(30, TimeUnit.SECONDS);
+            }
+            running.set(false);
+            rewriter.get(30, TimeUnit.SECONDS);
+
+            spillFile.rewrite(List.of(kept));
+            assertEquals(List.of(kept), spillFile.readAll());
+            spillFile.close();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static PurchaseRow row(String description) {
+        return new PurchaseRow(TimeOrderedUuid.next(), LocalDate.of(2025, 1, 20), description,
+                new BigDecimal("12.50"), "Canada", "Canada-Dollar");
+    }
+}
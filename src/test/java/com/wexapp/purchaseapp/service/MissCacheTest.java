@@ -0,0 +1,159 @@
+package com.wexapp.purchaseapp.service;
+
+import com.wexapp.purchaseapp.exception.ExchangeRateNotFoundException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MissCacheTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-06-15T12:00:00Z"));
+
+    @Test
+    void testGenuineMiss_ShouldBeCachedForMissTtl() {
+        MissCache<String> cache = new MissCache<>(Duration.ofMinutes(15), 100, clock);
+
+        cache.add("Testland-Crown");
+        clock.advance(Duration.ofMinutes(15));
+        assertTrue(cache.contains("Testland-Crown"), "A miss should be answered from the cache until the TTL ends");
+
+        clock.advance(Duration.ofSeconds(1));
+        assertFalse(cache.contains("Testland-Crown"), "An expired miss should be looked up again");
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void testResolveExchangeRate_ShouldCacheGenuineMissButNotTreasuryFailure() {
+        AtomicInteger calls = new AtomicInteger();
+        MissCache<CurrencyService.RateWindowKey> misses = new MissCache<>(Duration.ofMinutes(15), 100, clock);
+        CurrencyService failing = new CurrencyService(new StubTreasuryClient(calls, true),
+            new CurrencyCatalog(), event -> { }, 60, misses);
+
+        // Treasury unreachable: the next request must try again
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            assertThrows(ExchangeRateNotFoundException.class,
+                () -> failing.resolveExchangeRate("Testland-Crown", LocalDate.of(2025, 3, 10)));
+            assertEquals(attempt, calls.get());
+        }
+        assertEquals(0, misses.size(), "A Treasury failure should not be cached as a miss");
+
+        // Treasury answers with no record in the window: the miss is remembered
+        CurrencyService empty = new CurrencyService(new StubTreasuryClient(new AtomicInteger(), false),
+            new CurrencyCatalog(), event -> { }, 60, misses);
+        assertThrows(ExchangeRateNotFoundException.class,
+            () -> empty.resolveExchangeRate("Testland-Crown", LocalDate.of(2025, 3, 10)));
+        assertTrue(misses.contains(new CurrencyService.RateWindowKey("Testland-Crown",
+            LocalDate.of(2024, 9, 10), LocalDate.of(2025, 3, 10))));
+    }
+
+    @Test
+    void testAdd_WhenFullOfLiveEntries_ShouldEvictOldest() {
+        MissCache<String> cache = new MissCache<>(Duration.ofMinutes(15), 3, clock);
+        cache.add("a");
+        cache.add("b");
+        cache.add("c");
+        assertEquals(3, cache.size());
+
+        cache.add("d");
+
+        assertEquals(3, cache.size());
+        assertFalse(cache.contains("a"));
+        assertTrue(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+        assertTrue(cache.contains("d"));
+    }
+
+    @Test
+    void testAdd_WhenReAdded_ShouldEvictByLatestAdd() {
+        MissCache<String> cache = new MissCache<>(Duration.ofMinutes(15), 3, clock);
+        cache.add("a");
+        cache.add("b");
+        cache.add("c");
+        clock.advance(Duration.ofMinutes(1));
+        cache.add("a");
+
+        cache.add("d");
+
+        assertFalse(cache.contains("b"), "The least recently added miss should go first");
+        assertTrue(cache.contains("a"));
+        assertTrue(cache.contains("c"));
+        assertTrue(cache.contains("d"));
+    }
+
+    @Test
+    void testAdd_WhenFull_ShouldDropExpiredEntriesFirst() {
+        MissCache<String> cache = new MissCache<>(Duration.ofMinutes(15), 3, clock);
+        cache.add("old");
+        clock.advance(Duration.ofMinutes(10));
+        cache.add("b");
+        cache.add("c");
+        clock.advance(Duration.ofMinutes(6));
+
+        cache.add("d");
+
+        assertEquals(3, cache.size());
+        assertFalse(cache.contains("old"));
+        assertTrue(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+        assertTrue(cache.contains("d"));
+    }
+
+    /**
+     * Treasury stand-in answering every rate query with no records, or failing it
+     */
+    private static class StubTreasuryClient extends TreasuryClient {
+        private final AtomicInteger calls;
+        private final boolean failing;
+
+        StubTreasuryClient(AtomicInteger calls, boolean failing) {
+            super(null, 1000, 5, 30);
+            this.calls = calls;
+            this.failing = failing;
+        }
+
+        @Override
+        public List<TreasuryRate> fetchRateHistory(String currencyCode, LocalDate from, LocalDate to) {
+            calls.incrementAndGet();
+            if (failing) {
+                throw new IllegalStateException("Treasury unreachable");
+            }
+            return List.of();
+        }
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.wexapp.purchaseapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NameDictionaryTest {
+
+    private final NameDictionary dictionary = new NameDictionary("country");
+
+    @Test
+    void testIdFor_ShouldRegisterOnlyOnce() {
+        AtomicInteger registrations = new AtomicInteger();
+
+        Short first = dictionary.idFor("Canada", name -> (short) (registrations.incrementAndGet() + 10));
+        Short second = dictionary.idFor("Canada", name -> (short) (registrations.incrementAndGet() + 10));
+
+        assertEquals((short) 11, first);
+        assertEquals(first, second);
+        assertEquals(1, registrations.get());
+    }
+
+    @Test
+    void testNameFor_ShouldReturnCanonicalInstance() {
+        dictionary.remember((short) 3, "Mexico");
+
+        String fromRow1 = dictionary.nameFor((short) 3, id -> new String("Mexico"));
+        String fromRow2 = dictionary.nameFor((short) 3, id -> new String("Mexico"));
+
+        assertSame(fromRow1, fromRow2);
+        assertEquals("Mexico", fromRow1);
+    }
+
+    @Test
+    void testNameFor_ShouldLookUpIdsAddedElsewhere() {
+        String name = dictionary.nameFor((short) 7, id -> "Japan");
+
+        assertEquals("Japan", name);
+        assertEquals((short) 7, dictionary.idFor("Japan", key -> {
+            throw new AssertionError("Already known");
+        }));
+    }
+
+    @Test
+    void testNameFor_UnknownId_ShouldThrow() {
+        assertThrows(IllegalStateException.class, () -> dictionary.nameFor((short) 99, id -> null));
+    }
+
+    @Test
+    void testRequire_ShouldOnlyAnswerRegisteredNames() {
+        assertThrows(IllegalStateException.class, () -> dictionary.require("Canada"));
+
+        dictionary.idFor("Canada", name -> (short) 4);
+
+        assertEquals((short) 4, dictionary.require("Canada"));
+    }
+
+    @Test
+    void testFind_ShouldNotRememberUnknownNames() {
+        assertNull(dictionary.find("Atlantis", name -> null));
+
+        // A later registration still goes through
+        assertEquals((short) 5, dictionary.idFor("Atlantis", name -> (short) 5));
+        assertEquals((short) 5, dictionary.find("Atlantis", name -> null));
+    }
+}
@@ -0,0 +1,107 @@
+package com.wexapp.purchaseapp.service;
+
+import com.wexapp.purchaseapp.entity.PurchaseConversion;
+import com.wexapp.purchaseapp.entity.TimeOrderedUuid;
+import com.wexapp.purchaseapp.repository.PurchaseConversionRepository;
+import com.wexapp.purchaseapp.repository.StoredConversion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PurchaseConversionStoreTest {
+
+    @Autowired
+    private PurchaseConversionStore conversionStore;
+
+    @Autowired
+    private PurchaseConversionRepository conversionRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @BeforeEach
+    void setUp() {
+        conversionRepository.deleteAll();
+    }
+
+    @Test
+    void testOnRatesUpdated_ShouldDropOnlyConversionsTheNewRecordsCanReplace() {
+        // Given - conversions into Testland-Crown around new records dated 2025-03-05 to 2025-03-31
+        UUID replaced = TimeOrderedUuid.next();
+        UUID beforeNewRecords = TimeOrderedUuid.next();
+        UUID alreadyLatest = TimeOrderedUuid.next();
+        UUID otherCurrency = TimeOrderedUuid.next();
+        conversionStore.saveAll("Testland-Crown", List.of(
+            conversion(replaced, "Testland-Crown", LocalDate.of(2025, 3, 10), LocalDate.of(2025, 3, 1)),
+            conversion(beforeNewRecords, "Testland-Crown", LocalDate.of(2025, 2, 20), LocalDate.of(2025, 1, 31)),
+            conversion(alreadyLatest, "Testland-Crown", LocalDate.of(2025, 4, 10), LocalDate.of(2025, 3, 31))));
+        conversionStore.saveAll("Otherland-Mark", List.of(
+            conversion(otherCurrency, "Otherland-Mark", LocalDate.of(2025, 3, 10), LocalDate.of(2025, 3, 1))));
+        assertEquals(4, conversionRepository.count());
+
+        // When
+        eventPublisher.publishEvent(new ExchangeRatesUpdatedEvent("Testland-Crown",
+            LocalDate.of(2025, 3, 5), LocalDate.of(2025, 3, 31)));
+
+        // Then - only the purchase dated after the first new record with an older rate is dropped
+        assertEquals(3, conversionRepository.count());
+        assertEquals(List.of(beforeNewRecords, alreadyLatest).stream().sorted().toList(),
+            conversionStore.find("Testland-Crown", List.of(replaced, beforeNewRecords, alreadyLatest))
+                .keySet().stream().sorted().toList());
+        assertTrue(conversionStore.find("Otherland-Mark", List.of(otherCurrency)).containsKey(otherCurrency),
+            "Conversions into other currencies should be kept");
+    }
+
+    @Test
+    void testOnRatesUpdated_UnknownCurrency_ShouldDoNothing() {
+        UUID purchaseId = TimeOrderedUuid.next();
+        conversionStore.saveAll("Testland-Crown", List.of(
+            conversion(purchaseId, "Testland-Crown", LocalDate.of(2025, 3, 10), LocalDate.of(2025, 3, 1))));
+
+        eventPublisher.publishEvent(new ExchangeRatesUpdatedEvent("Nowhere-Shell",
+            LocalDate.of(2025, 3, 5), LocalDate.of(2025, 3, 31)));
+
+        assertEquals(1, conversionRepository.count());
+    }
+
+    @Test
+    void testSaveAll_WithRowsStoredConcurrently_ShouldStoreTheRest() {
+        // Given - another request stored one of the purchases first
+        UUID storedFirst = TimeOrderedUuid.next();
+        UUID notStoredYet = TimeOrderedUuid.next();
+        conversionStore.saveAll("Testland-Crown", List.of(
+            conversion(storedFirst, "Testland-Crown", LocalDate.of(2025, 3, 10), LocalDate.of(2025, 3, 1))));
+
+        // When - the batch containing it hits the unique key
+        PurchaseConversion duplicate = conversion(storedFirst, "Testland-Crown", LocalDate.of(2025, 3, 10),
+            LocalDate.of(2025, 3, 1));
+        duplicate.setConvertedAmount(new BigDecimal("99.99"));
+        conversionStore.saveAll("Testland-Crown", List.of(duplicate,
+            conversion(notStoredYet, "Testland-Crown", LocalDate.of(2025, 3, 12), LocalDate.of(2025, 3, 1))));
+
+        // Then - the rest of the batch is stored and the first row is left as it was
+        assertEquals(2, conversionRepository.count());
+        Map<UUID, StoredConversion> stored = conversionStore.find("Testland-Crown", List.of(storedFirst, notStoredYet));
+        assertEquals(new BigDecimal("15.00"), stored.get(storedFirst).convertedAmount());
+        assertTrue(stored.containsKey(notStoredYet));
+    }
+
+    private static PurchaseConversion conversion(UUID purchaseId, String currency, LocalDate purchaseDate,
+                                                 LocalDate rateDate) {
+        return new PurchaseConversion(null, purchaseId, currency, purchaseDate, new BigDecimal("15.00"),
+            new BigDecimal("1.5"), rateDate, null);
+    }
+}
@@ -0,0 +1,103 @@
+package com.wexapp.purchaseapp.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateSnapshotTest {
+
+    private static final LocalDate FROM = LocalDate.of(2024, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2025, 3, 31);
+
+    @TempDir
+    Path tempDir;
+
+    private final List<TreasuryClient.TreasuryRate> rates = List.of(
+            new TreasuryClient.TreasuryRate("Canada-Dollar", LocalDate.of(2024, 12, 31), new BigDecimal("1.439")),
+            new TreasuryClient.TreasuryRate("Canada-Dollar", LocalDate.of(2025, 3, 31), new BigDecimal("1.372")),
+            new TreasuryClient.TreasuryRate("Canada-Dollar", LocalDate.of(2024, 9, 30), new BigDecimal("1.351")),
+            new TreasuryClient.TreasuryRate("Japan-Yen", LocalDate.of(2025, 3, 31), new BigDecimal("149.5")));
+
+    @Test
+    void testWriteAndOpen_ShouldAnswerFloorLookupsInPlace() throws IOException {
+        Path file = tempDir.resolve("rates.snapshot");
+        RateSnapshot.write(file, rates, FROM, TO);
+
+        RateSnapshot snapshot = RateSnapshot.open(file);
+
+        assertEquals(4, snapshot.size());
+        assertEquals(2, snapshot.currencyCount());
+        assertEquals(FROM, snapshot.coveredFrom());
+        assertEquals(TO, snapshot.coveredTo());
+
+        Optional<ExchangeRateIndex.RateEntry> entry =
+                snapshot.floor("Canada-Dollar", LocalDate.of(2025, 2, 15), LocalDate.of(2024, 8, 15));
+        assertTrue(entry.isPresent());
+        assertEquals(LocalDate.of(2024, 12, 31), entry.get().recordDate());
+        assertEquals(0, new BigDecimal("1.439").compareTo(entry.get().rate()));
+
+        assertEquals(LocalDate.of(2025, 3, 31),
+                snapshot.floor("Canada-Dollar", LocalDate.of(2025, 6, 1), FROM).get().recordDate());
+        assertTrue(snapshot.floor("Canada-Dollar", LocalDate.of(2024, 9, 29), FROM).isEmpty());
+        assertTrue(snapshot.floor("Canada-Dollar", LocalDate.of(2025, 2, 15), LocalDate.of(2025, 1, 1)).isEmpty());
+        assertTrue(snapshot.floor("Mexico-Peso", TO, FROM).isEmpty());
+    }
+
+    @Test
+    void testWriteAndOpen_ShouldKeepRatesExact() throws IOException {
+        Map<String, BigDecimal> written = Map.of(
+                "Euro Zone-Euro", new BigDecimal("0.92345678"),
+                "Iran-Rial", new BigDecimal("42000.00"),
+                "Testland-Crown", new BigDecimal("0.000012345678901"));
+        Path file = tempDir.resolve("rates.snapshot");
+        RateSnapshot.write(file, written.entrySet().stream()
+                .map(rate -> new TreasuryClient.TreasuryRate(rate.getKey(), TO, rate.getValue()))
+                .toList(), FROM, TO);
+
+        RateSnapshot snapshot = RateSnapshot.open(file);
+
+        // The same entries the live index holds, including digits past the fixed-point scale
+        written.forEach((currency, rate) -> {
+            ExchangeRateIndex.RateEntry entry = snapshot.floor(currency, TO, FROM).orElseThrow();
+            assertEquals(ExchangeRateIndex.RateEntry.of(TO, rate), entry);
+            assertEquals(0, rate.compareTo(entry.rate()));
+        });
+    }
+
+    @Test
+    void testOpen_ShouldRejectOtherFiles() throws IOException {
+        Path file = tempDir.resolve("not-a-snapshot");
+        Files.writeString(file, "{\"data\":[]} plus enough bytes to fill a header");
+
+        assertThrows(IOException.class, () -> RateSnapshot.open(file));
+    }
+
+    @Test
+    void testAttachedSnapshot_ShouldServeIndexLookupsWithoutLoading() throws IOException {
+        Path file = tempDir.resolve("rates.snapshot");
+        RateSnapshot.write(file, rates, FROM, TO);
+        ExchangeRateIndex index = new ExchangeRateIndex(Duration.ofHours(1));
+
+        index.attach(RateSnapshot.open(file));
+
+        assertTrue(index.missingRanges("Japan-Yen", LocalDate.of(2024, 10, 1), TO).isEmpty());
+        assertEquals(new BigDecimal("149.5"), index.floor("Japan-Yen", TO, FROM).get().rate());
+
+        // Newer records loaded later sit on top of the snapshot
+        index.load("Japan-Yen", TO.plusDays(1), LocalDate.of(2025, 4, 30),
+                Map.of(LocalDate.of(2025, 4, 30), new BigDecimal("143.1")));
+        assertEquals(LocalDate.of(2025, 4, 30),
+                index.floor("Japan-Yen", LocalDate.of(2025, 5, 1), FROM).get().recordDate());
+    }
+}
@@ -0,0 +1,30 @@
+package com.wexapp.purchaseapp.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreasuryClientTest {
+
+    @Test
+    void testIsUnavailable_ThrottledOrTimedOut_ShouldCountAsFailure() {
+        assertTrue(TreasuryClient.isUnavailable(response(429)), "429 Too Many Requests should open the circuit");
+        assertTrue(TreasuryClient.isUnavailable(response(408)), "408 Request Timeout should open the circuit");
+        assertTrue(TreasuryClient.isUnavailable(response(503)));
+        assertTrue(TreasuryClient.isUnavailable(new TimeoutException("call timed out")));
+    }
+
+    @Test
+    void testIsUnavailable_OtherClientErrors_ShouldNotCountAsFailure() {
+        // Treasury answered and rejected this request; other requests still go through
+        assertFalse(TreasuryClient.isUnavailable(response(400)));
+        assertFalse(TreasuryClient.isUnavailable(response(404)));
+    }
+
+    private static WebClientResponseException response(int status) {
+        return WebClientResponseException.create(status, "status " + status, null, null, null);
+    }
+}
@@ -0,0 +1,118 @@
+package com.wexapp.purchaseapp.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TreasuryPageDecoderTest {
+
+    private static final String PAGE = "{\"data\":["
+            + "{\"country_currency_desc\":\"Canada-Dollar\",\"exchange_rate\":\"1.372\",\"record_date\":\"2025-03-31\"},"
+            + "{\"country_currency_desc\":\"Mexico-Peso\",\"exchange_rate\":\"20.43\",\"record_date\":\"2025-03-31\"},"
+            + "{\"country_currency_desc\":\"Canada-Dollar\",\"exchange_rate\":null,\"record_date\":\"2024-12-31\"}],"
+            + "\"meta\":{\"count\":3,\"labels\":{\"country\":\"Country\"},\"total-count\":3,\"total-pages\":1},"
+            + "\"links\":{\"self\":\"&page%5Bnumber%5D=1\",\"next\":null}}";
+
+    @Test
+    void testDecode_ShouldReportRowsAndMeta() {
+        List<String> rows = new ArrayList<>();
+        TreasuryPageDecoder decoder = new TreasuryPageDecoder(recorder(rows));
+
+        feedInChunks(decoder, PAGE, PAGE.length());
+        decoder.endOfInput();
+
+        assertEquals(3, decoder.rowCount());
+        assertEquals(1, decoder.totalPages());
+        assertEquals(3, decoder.totalCount());
+        assertEquals(List.of(
+                "country_currency_desc=Canada-Dollar;exchange_rate=1.372;record_date=2025-03-31;",
+                "country_currency_desc=Mexico-Peso;exchange_rate=20.43;record_date=2025-03-31;",
+                "country_currency_desc=Canada-Dollar;record_date=2024-12-31;"), rows);
+    }
+
+    @Test
+    void testDecode_ChunkBoundariesShouldNotMatter() {
+        List<String> whole = new ArrayList<>();
+        TreasuryPageDecoder reference = new TreasuryPageDecoder(recorder(whole));
+        feedInChunks(reference, PAGE, PAGE.length());
+        reference.endOfInput();
+
+        for (int chunkSize = 1; chunkSize < 40; chunkSize++) {
+            List<String> rows = new ArrayList<>();
+            TreasuryPageDecoder decoder = new TreasuryPageDecoder(recorder(rows));
+            feedInChunks(decoder, PAGE, chunkSize);
+            decoder.endOfInput();
+
+            assertEquals(whole, rows, "chunk size " + chunkSize);
+            assertEquals(1, decoder.totalPages());
+        }
+    }
+
+    @Test
+    void testTruncatedBody_ShouldFail() {
+        TreasuryPageDecoder decoder = new TreasuryPageDecoder(recorder(new ArrayList<>()));
+        feedInChunks(decoder, PAGE.substring(0, PAGE.length() / 2), 16);
+
+        assertThrows(RuntimeException.class, decoder::endOfInput);
+    }
+
+    @Test
+    void testEmptyData_ShouldReportNoRows() {
+        TreasuryPageDecoder decoder = new TreasuryPageDecoder(recorder(new ArrayList<>()));
+        feedInChunks(decoder, "{\"data\":[],\"meta\":{\"total-count\":0,\"total-pages\":0}}", 8);
+        decoder.endOfInput();
+
+        assertEquals(0, decoder.rowCount());
+        assertEquals(0, decoder.totalPages());
+    }
+
+    @Test
+    void testParseDate_ShouldReadIsoDatesFromChars() {
+        char[] text = "x2025-03-31y".toCharArray();
+
+        assertEquals(LocalDate.of(2025, 3, 31), TreasuryClient.parseDate(text, 1, 10));
+    }
+
+    @Test
+    void testInterner_ShouldReturnSameInstanceForSameText() {
+        TextInterner interner = new TextInterner(64);
+        char[] first = "xxCanada-Dollar".toCharArray();
+        char[] second = "Canada-Dollaryy".toCharArray();
+
+        String a = interner.intern(first, 2, 13);
+        String b = interner.intern(second, 0, 13);
+
+        assertEquals("Canada-Dollar", a);
+        assertSame(a, b);
+    }
+
+    private static TreasuryPageDecoder.RowHandler recorder(List<String> rows) {
+        StringBuilder row = new StringBuilder();
+        return new TreasuryPageDecoder.RowHandler() {
+            @Override
+            public void field(String name, char[] text, int offset, int length) {
+                row.append(name).append('=').append(text, offset, length).append(';');
+            }
+
+            @Override
+            public void endRow() {
+                rows.add(row.toString());
+                row.setLength(0);
+            }
+        };
+    }
+
+    private static void feedInChunks(TreasuryPageDecoder decoder, String json, int chunkSize) {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+        for (int offset = 0; offset < bytes.length; offset += chunkSize) {
+            int length = Math.min(chunkSize, bytes.length - offset);
+            decoder.feed(ByteBuffer.wrap(bytes, offset, length).slice());
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.wexapp.purchaseapp.service;
+
+import com.wexapp.purchaseapp.dto.WarmUpStatusDTO;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarmUpServiceTest {
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2025-06-15T12:00:00Z"));
+    private final WarmUpService warmUp = new WarmUpService(clock);
+
+    @Test
+    void testBeforeDeadline_ShouldNotBeReady() {
+        warmUp.begin(Duration.ofSeconds(90));
+        clock.advance(Duration.ofSeconds(89));
+
+        // GET /api/status/ready answers 503 while this is false
+        WarmUpStatusDTO status = warmUp.status();
+        assertEquals("WARMING_UP", status.getState());
+        assertFalse(status.isReady());
+        assertFalse(warmUp.isReady());
+        assertNull(status.getFinishedAt());
+    }
+
+    @Test
+    void testDeadlinePassed_ShouldBecomeReadyWhileWarmUpIsStillRunning() {
+        warmUp.begin(Duration.ofSeconds(90));
+        clock.advance(Duration.ofSeconds(91));
+
+        WarmUpStatusDTO status = warmUp.status();
+        assertEquals("DEADLINE_PASSED", status.getState());
+        assertTrue(status.isReady(), "The deadline should put the instance in rotation (503 -> 200)");
+        assertEquals(Instant.parse("2025-06-15T12:01:31Z"), status.getFinishedAt());
+
+        // Warm-up finishing later does not rewrite the outcome
+        warmUp.finish(WarmUpService.State.READY);
+        assertEquals(WarmUpService.State.DEADLINE_PASSED, warmUp.currentState());
+    }
+
+    @Test
+    void testFinishedBeforeDeadline_ShouldStayReady() {
+        warmUp.begin(Duration.ofSeconds(90));
+        clock.advance(Duration.ofSeconds(10));
+        warmUp.finish(WarmUpService.State.READY);
+
+        clock.advance(Duration.ofSeconds(120));
+
+        WarmUpStatusDTO status = warmUp.status();
+        assertEquals("READY", status.getState());
+        assertTrue(status.isReady());
+        assertEquals(Instant.parse("2025-06-15T12:00:10Z"), status.getFinishedAt());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}